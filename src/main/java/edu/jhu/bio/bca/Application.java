@@ -1,5 +1,8 @@
 package edu.jhu.bio.bca;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
@@ -14,8 +17,12 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 import edu.jhu.bio.bca.graph.BetweennessCentrality;
+import edu.jhu.bio.bca.graph.OutOfCoreBetweennessCentrality;
+import edu.jhu.bio.bca.model.CsrGraph;
 import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.parsers.GraphBuilder;
 import edu.jhu.bio.bca.parsers.GraphParser;
+import edu.jhu.bio.bca.parsers.StreamingGraphParser;
 import edu.jhu.bio.bca.utils.GraphUtils;
 
 /**
@@ -38,6 +45,14 @@ public class Application implements CommandLineRunner {
 	public void run(String... args) throws Exception {
 		opts.addOption("input", true, "Specify the path to the folder that contains the input files");
 		opts.addOption("parser", true, "Class name of graph parser to use");
+		opts.addOption("bc_engine", true,
+				"Betweenness centrality engine, memory (default) or disk for graphs larger than the heap");
+		opts.addOption("bc_csr_file", true, "File the disk engine writes the graph to. default is graph.csr");
+		opts.addOption("bc_heap_budget", true,
+				"Maximum heap in MB the disk engine may use for its working arrays. default is half the max heap");
+		opts.addOption("bc_output", true,
+				"File the disk engine writes \"id<TAB>centrality\" lines to when the parser streams its edges, "
+						+ "no graph files are written in that case. default is centralities.txt");
 		opts.addOption("help", false, "Display help");
 
 		// collect options from all parsers
@@ -67,26 +82,74 @@ public class Application implements CommandLineRunner {
 		GraphParser parser = getParser(GraphParser.class.getPackage().getName() + "." + parserClassName);
 		if (parser == null) {
 			System.err.println("Unknown parser " + parserClassName);
+			return;
 		}
 
 		// init the parser
 		parser.init(cli);
 
+		boolean disk = "disk".equals(cli.getOptionValue("bc_engine", "memory"));
+		Path csrFile = Paths.get(cli.getOptionValue("bc_csr_file", "graph.csr"));
+		long heapBudget = cli.hasOption("bc_heap_budget")
+				? Long.parseLong(cli.getOptionValue("bc_heap_budget")) << 20
+				: Runtime.getRuntime().maxMemory() / 2;
+
+		// streaming parsers write the graph straight to disk, so it is never
+		// held on the heap as an MGraph
+		if (disk && parser instanceof StreamingGraphParser) {
+			writeCsr((StreamingGraphParser) parser, path, csrFile);
+			try (CsrGraph csr = CsrGraph.open(csrFile)) {
+				System.out.println("Graph written to " + csrFile + " with " + csr.getVertexCount() + " vertices and "
+						+ csr.getEdgeCount() + " edges");
+				OutOfCoreBetweennessCentrality bc = new OutOfCoreBetweennessCentrality(csr, heapBudget);
+				bc.process();
+				bc.saveCentralities(Paths.get(cli.getOptionValue("bc_output", "centralities.txt")));
+			}
+			return;
+		}
+
 		// run the parser to generate the graph
 		MGraph graph = parser.parse(path);
 
 		// run betweenness centrality on this graph
-		BetweennessCentrality bc = new BetweennessCentrality(graph);
-		bc.process();
+		if (disk) {
+			CsrGraph.write(graph, csrFile);
+			try (CsrGraph csr = CsrGraph.open(csrFile)) {
+				OutOfCoreBetweennessCentrality bc = new OutOfCoreBetweennessCentrality(csr, heapBudget);
+				bc.process();
+				bc.saveCentralities(graph);
+			}
+		} else {
+			BetweennessCentrality bc = new BetweennessCentrality(graph);
+			bc.process();
+		}
 
 		// save final graph
 		GraphUtils.saveGraph(graph, "out.graphml");
 		GraphUtils.saveGraphForPageRankWithSpark(graph, "vertices.txt", "edges.txt");
 	}
 
-	private GraphParser getParser(String clsName) throws ClassNotFoundException {
+	/**
+	 * Streams the edges into a builder and writes them to a CSR graph file,
+	 * applying the edge weight threshold of the parser. The builder is garbage
+	 * once this returns
+	 * 
+	 * @param parser
+	 * @param path
+	 * @param csrFile
+	 * @throws IOException
+	 */
+	private void writeCsr(StreamingGraphParser parser, String path, Path csrFile) throws IOException {
+		GraphBuilder builder = new GraphBuilder();
+		parser.parse(path, builder);
+		System.out.println("Graph generated with " + builder.getVertexCount() + " vertices and "
+				+ builder.getEdgeCount() + " edges ");
+		builder.writeCsr(csrFile, parser.getMinEdgeWeight());
+	}
+
+	private GraphParser getParser(String clsName) {
 		for (GraphParser parser : parsers) {
-			if (parser.getClass() == Class.forName(clsName)) {
+			if (parser.getClass().getName().equals(clsName)) {
 				return parser;
 			}
 		}
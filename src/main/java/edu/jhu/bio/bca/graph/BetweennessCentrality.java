@@ -1,8 +1,10 @@
 package edu.jhu.bio.bca.graph;
 
-import java.util.HashSet;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
@@ -12,10 +14,15 @@ import edu.jhu.bio.bca.model.MGraph;
 
 /**
  * BetweennessCentrality
- * 
+ *
  * Implementation based on Brandes algorithm as described in "Graph algorithms
  * in the Language of Linear Algebra" book. Chapter 6
- * 
+ *
+ * The graph is copied into primitive arrays once per run. All per source state
+ * (distances, path counts, deltas and predecessor lists) lives in arrays that
+ * are allocated up front and reset for each source, so processing a source
+ * allocates nothing.
+ *
  * @author adeelq
  *
  */
@@ -23,6 +30,30 @@ public class BetweennessCentrality {
 
 	private final MGraph graph;
 
+	// vertex number -> vertex
+	private Vertex[] vertices;
+	// neighbors of vertex v are targets[offsets[v]] to targets[offsets[v + 1]]
+	private int[] offsets;
+	private int[] targets;
+	private double[] weights;
+
+	private double[] dist;
+	private double[] sigma;
+	private double[] delta;
+	private double[] centrality;
+
+	// predecessors of vertex w are preds[predStart[w]] to
+	// preds[predStart[w] + predCount[w]], one entry per edge so that parallel
+	// edges count as separate shortest paths. predStart is fixed for the run
+	// since a vertex can not have more entries than edges pointing to it
+	private int[] preds;
+	private int[] predStart;
+	private int[] predCount;
+
+	// vertices in the order their distance became final
+	private int[] stack;
+	private DistanceHeap queue;
+
 	public BetweennessCentrality(MGraph graph) {
 		this.graph = graph;
 	}
@@ -32,189 +63,166 @@ public class BetweennessCentrality {
 	 * node in the graph
 	 */
 	public void process() {
-		// zero out all centrality values
-		resetCentralities();
+		// copy the graph into arrays and allocate per source state
+		init();
 
+		int n = vertices.length;
 		// process each node
-		for (Vertex s : graph.getVertices()) {
-			// reset any shortest path related properties on the node
-			resetShortPaths();
-
-			// delta is used in reverse calculation of BC, reset the property on
-			// the node
-			resetDeltas();
-			// calculate shortest paths to all nodes from the node s
-			// and store the results in a FILO stack so that we are able to
+		for (int s = 0; s < n; s++) {
+			// calculate shortest paths to all nodes from the node s and record
+			// the nodes in the order they were reached so that we are able to
 			// process the last element in the shortest path first
-			PriorityQueue<Vertex> stack = calculateShortestPaths(s);
+			int size = calculateShortestPaths(s);
+
+			// delta is used in reverse calculation of BC
+			Arrays.fill(delta, 0);
 
 			// process nodes in the shortest path
-			while (!stack.isEmpty()) {
-				Vertex w = stack.poll();
+			for (int i = size - 1; i >= 0; i--) {
+				int w = stack[i];
 
 				// process each predecessor and calculate delta
-				for (Vertex v : getPreds(w)) {
-					double delta = getDelta(v) + (getSigma(v) / getSigma(w)) * (1 + getDelta(w));
-					setDelta(v, delta);
+				for (int p = predStart[w], end = p + predCount[w]; p < end; p++) {
+					int v = preds[p];
+					delta[v] += (sigma[v] / sigma[w]) * (1 + delta[w]);
 				}
 
-				// update centrlaity
+				// update centrality
 				if (w != s) {
-					setCentrality(w, getCentrality(w) + getDelta(w));
+					centrality[w] += delta[w];
 				}
 			}
 		}
+
+		for (int v = 0; v < n; v++) {
+			vertices[v].setProperty("cent", centrality[v]);
+		}
 	}
 
 	/**
 	 * Calculates shortest paths to all other nodes in the graph from the given
 	 * node using the Dijkestra algorithm
-	 * 
-	 * @param vertex
-	 * @return
+	 *
+	 * @param s
+	 * @return number of nodes reached, which are stored in the stack
 	 */
-	@SuppressWarnings("unchecked")
-	private PriorityQueue<Vertex> calculateShortestPaths(Vertex vertex) {
-		PriorityQueue<Vertex> stack = new PriorityQueue<Vertex>(new StackComparator());
-		PriorityQueue<Vertex> queue = new PriorityQueue<Vertex>(new QueueComparator());
+	private int calculateShortestPaths(int s) {
+		// reset any shortest path related state
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(sigma, 0);
+		Arrays.fill(predCount, 0);
+		queue.clear();
 
 		// sigma represents the shortest path from given vertex
-		setSigma(vertex, 1);
+		sigma[s] = 1;
 		// distance represents the number of hops from given vertex
-		setDistance(vertex, 0);
+		dist[s] = 0;
 
-		queue.add(vertex);
+		int size = 0;
+		queue.add(s);
 		while (!queue.isEmpty()) {
-			Vertex v = queue.poll();
-			stack.add(v);
+			int v = queue.poll();
+			stack[size++] = v;
 
 			// process all neighbors of given vertex
-			for (Vertex w : v.getVertices(Direction.IN)) {
-				// distance so far
-				double currentDistance = getDistance(w);
+			for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+				int w = targets[k];
 				// distance to next node
-				double forwardDistance = getDistance(v) + getEdgeWeight(v, w);
+				double forwardDistance = dist[v] + weights[k];
 
 				// found a shorter path
-				if (forwardDistance < currentDistance) {
-					// queues need to be updated to reposition elements based on
-					// new "dist" property
-					updateQueuesWithDistance(w, forwardDistance, queue, stack);
-					// unvisited node
-					if (currentDistance == Integer.MAX_VALUE) {
+				if (forwardDistance < dist[w]) {
+					boolean unvisited = dist[w] == Double.POSITIVE_INFINITY;
+					dist[w] = forwardDistance;
+					// queue needs to be updated to reposition the node based on
+					// new distance
+					if (unvisited) {
 						queue.add(w);
+					} else {
+						queue.decreased(w);
 					}
-					setSigma(w, 0);
-					getPreds(w).clear();
+					sigma[w] = 0;
+					predCount[w] = 0;
 				}
 
 				// add current node to the shortest path and update sigma and
 				// preds
-				if (getDistance(w) == forwardDistance) {
-					setSigma(w, getSigma(w) + getSigma(v));
-					getPreds(w).add(v);
+				if (dist[w] == forwardDistance) {
+					sigma[w] += sigma[v];
+					addPred(w, v);
 				}
 			}
 		}
 
-		return stack;
+		return size;
 	}
 
 	/**
-	 * Removes and reinserts the given vertices in the queue with the updated
-	 * distance. This is a common technique to perform in-place sorting of the
-	 * queue elements
-	 * 
+	 * Adds v to the predecessors of w. Each parallel edge adds its own entry,
+	 * matching the sigma it contributed
+	 *
+	 * @param w
 	 * @param v
-	 * @param d
-	 * @param queues
 	 */
-	@SuppressWarnings("unchecked")
-	private void updateQueuesWithDistance(Vertex v, double d, PriorityQueue<Vertex>... queues) {
-		setDistance(v, d);
-		for (PriorityQueue<Vertex> q : queues) {
-			if (q.contains(v)) {
-				q.remove(v);
-				q.add(v);
-			}
-		}
+	private void addPred(int w, int v) {
+		preds[predStart[w] + predCount[w]++] = v;
 	}
 
-	private void resetCentralities() {
+	/**
+	 * Numbers the vertices and copies their neighbors and edge weights into
+	 * arrays. A vertex w is a neighbor of v if there is an edge from w to v
+	 */
+	private void init() {
+		List<Vertex> list = new ArrayList<>();
+		Map<Vertex, Integer> index = new HashMap<>();
 		for (Vertex v : graph.getVertices()) {
-			setCentrality(v, 0);
+			index.put(v, list.size());
+			list.add(v);
 		}
-	}
+		vertices = list.toArray(new Vertex[list.size()]);
+		int n = vertices.length;
 
-	private void resetShortPaths() {
-		for (Vertex v : graph.getVertices()) {
-			setPreds(v, new HashSet<Vertex>());
-			setSigma(v, 0);
-			setDistance(v, Integer.MAX_VALUE);
+		offsets = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] = offsets[v] + count(vertices[v].getEdges(Direction.IN));
 		}
-	}
 
-	private void resetDeltas() {
-		for (Vertex v : graph.getVertices()) {
-			setDelta(v, 0);
+		int m = offsets[n];
+		targets = new int[m];
+		weights = new double[m];
+		predStart = new int[n + 1];
+		for (int v = 0, k = 0; v < n; v++) {
+			for (Edge e : vertices[v].getEdges(Direction.IN)) {
+				int w = index.get(e.getVertex(Direction.OUT));
+				targets[k] = w;
+				weights[k] = getEdgeWeight(e);
+				predStart[w + 1]++;
+				k++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			predStart[v + 1] += predStart[v];
 		}
+		preds = new int[m];
+		predCount = new int[n];
+
+		dist = new double[n];
+		sigma = new double[n];
+		delta = new double[n];
+		centrality = new double[n];
+		stack = new int[n];
+		queue = new DistanceHeap(dist);
 	}
 
 	/**
-	 * Returns edge weight between the given nodes. Default is 1
-	 * 
-	 * @param from
-	 * @param to
+	 * Returns the weight of the given edge. Default is 1
+	 *
+	 * @param e
 	 * @return
 	 */
-	private double getEdgeWeight(Vertex from, Vertex to) {
-		for (Edge e : from.getEdges(Direction.IN)) {
-			if (e.getVertex(Direction.OUT) == to) {
-				return e.getProperty("weight") != null ? (double) e.getProperty("weight") : 1;
-			}
-		}
-		return 0;
-	}
-
-	private double getDistance(Vertex v) {
-		return (double) v.getProperty("dist");
-	}
-
-	private void setDistance(Vertex v, double dist) {
-		v.setProperty("dist", dist);
-	}
-
-	private double getSigma(Vertex v) {
-		return (double) v.getProperty("sigma");
-	}
-
-	private void setSigma(Vertex v, double sigma) {
-		v.setProperty("sigma", sigma);
-	}
-
-	@SuppressWarnings("unchecked")
-	private Set<Vertex> getPreds(Vertex v) {
-		return (Set<Vertex>) v.getProperty("preds");
-	}
-
-	private void setPreds(Vertex v, Set<Vertex> preds) {
-		v.setProperty("preds", preds);
-	}
-
-	private double getCentrality(Vertex v) {
-		return (double) v.getProperty("cent");
-	}
-
-	private void setCentrality(Vertex v, double cent) {
-		v.setProperty("cent", cent);
-	}
-
-	private double getDelta(Vertex v) {
-		return v.getProperty("delta");
-	}
-
-	private void setDelta(Vertex v, double delta) {
-		v.setProperty("delta", delta);
+	private double getEdgeWeight(Edge e) {
+		Object weight = e.getProperty("weight");
+		return weight instanceof Number ? ((Number) weight).doubleValue() : 1;
 	}
 
 	@SuppressWarnings("unused")
@@ -225,4 +233,4 @@ public class BetweennessCentrality {
 		}
 		return count;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package edu.jhu.bio.bca.graph;
+
+/**
+ * Indexed binary min heap of vertex numbers ordered by their entry in a
+ * distance array. Supports lowering the distance of a queued vertex in place,
+ * and allocates nothing after construction
+ * 
+ * @author adeelq
+ *
+ */
+class DistanceHeap {
+
+	private final double[] dist;
+	private final int[] heap;
+	private final int[] pos;
+	private int size;
+
+	DistanceHeap(double[] dist) {
+		this.dist = dist;
+		this.heap = new int[dist.length];
+		this.pos = new int[dist.length];
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	void add(int v) {
+		heap[size] = v;
+		pos[v] = size;
+		siftUp(size++);
+	}
+
+	int poll() {
+		int v = heap[0];
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			pos[heap[0]] = 0;
+			siftDown(0);
+		}
+		return v;
+	}
+
+	/**
+	 * Repositions a queued vertex after its distance was lowered
+	 * 
+	 * @param v
+	 */
+	void decreased(int v) {
+		siftUp(pos[v]);
+	}
+
+	private void siftUp(int i) {
+		int v = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (dist[heap[parent]] <= dist[v]) {
+				break;
+			}
+			heap[i] = heap[parent];
+			pos[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+
+	private void siftDown(int i) {
+		int v = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && dist[heap[child + 1]] < dist[heap[child]]) {
+				child++;
+			}
+			if (dist[v] <= dist[heap[child]]) {
+				break;
+			}
+			heap[i] = heap[child];
+			pos[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+}
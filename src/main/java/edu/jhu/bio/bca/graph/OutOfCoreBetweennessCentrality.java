@@ -0,0 +1,238 @@
+package edu.jhu.bio.bca.graph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.model.CsrGraph;
+import edu.jhu.bio.bca.model.MGraph;
+
+/**
+ * OutOfCoreBetweennessCentrality
+ *
+ * Brandes algorithm over a memory mapped {@link CsrGraph}, for graphs that do
+ * not fit in the heap. The edges stay on disk and only a fixed number of
+ * primitive arrays of vertex count length live on the heap. Predecessors are
+ * not stored, during the backward sweep a vertex v is a predecessor of its
+ * neighbor w exactly when dist(v) + weight(v, w) == dist(w), so the delta of v
+ * is accumulated from its own row once all farther vertices are done. Vertex
+ * ids are never loaded, they are streamed from the file when the centralities
+ * are saved.
+ *
+ * @author adeelq
+ *
+ */
+public class OutOfCoreBetweennessCentrality {
+
+	// dist, sigma, delta, centrality and order
+	private static final int BYTES_PER_VERTEX = 4 * 8 + 4;
+	// heap and heap positions for Dijkstra
+	private static final int WEIGHTED_BYTES_PER_VERTEX = BYTES_PER_VERTEX + 2 * 4;
+
+	private final CsrGraph graph;
+	private final int n;
+
+	private final double[] dist;
+	private final double[] sigma;
+	private final double[] delta;
+	private final double[] centrality;
+	// vertices in the order their distance became final
+	private final int[] order;
+
+	// weighted graphs only
+	private final DistanceHeap heap;
+
+	/**
+	 * Uses at most half of the maximum heap for its working arrays
+	 *
+	 * @param graph
+	 */
+	public OutOfCoreBetweennessCentrality(CsrGraph graph) {
+		this(graph, Runtime.getRuntime().maxMemory() / 2);
+	}
+
+	/**
+	 * @param graph
+	 * @param heapBudget
+	 *            maximum number of bytes the working arrays may take up
+	 */
+	public OutOfCoreBetweennessCentrality(CsrGraph graph, long heapBudget) {
+		this.graph = graph;
+		this.n = graph.getVertexCount();
+
+		long required = requiredHeap(graph);
+		if (required > heapBudget) {
+			throw new IllegalStateException("betweenness centrality for " + n + " vertices needs " + required
+					+ " bytes of heap, budget is " + heapBudget);
+		}
+
+		dist = new double[n];
+		sigma = new double[n];
+		delta = new double[n];
+		centrality = new double[n];
+		order = new int[n];
+		heap = graph.isWeighted() ? new DistanceHeap(dist) : null;
+	}
+
+	/**
+	 * Number of bytes of heap the working arrays take up for the given graph.
+	 * This is all the heap the engine needs, since vertex ids are streamed
+	 *
+	 * @param graph
+	 * @return
+	 */
+	public static long requiredHeap(CsrGraph graph) {
+		return (long) graph.getVertexCount() * (graph.isWeighted() ? WEIGHTED_BYTES_PER_VERTEX : BYTES_PER_VERTEX);
+	}
+
+	/**
+	 * Computes betweenness centrality for each vertex in the graph. The
+	 * returned array is indexed by vertex number
+	 *
+	 * @return
+	 */
+	public double[] process() {
+		Arrays.fill(centrality, 0);
+
+		for (int s = 0; s < n; s++) {
+			Arrays.fill(dist, Double.POSITIVE_INFINITY);
+			Arrays.fill(sigma, 0);
+			Arrays.fill(delta, 0);
+
+			int settled = graph.isWeighted() ? dijkstra(s) : bfs(s);
+
+			// process vertices farthest first
+			for (int i = settled - 1; i >= 0; i--) {
+				int v = order[i];
+				double d = 0;
+				for (long k = graph.offset(v), end = graph.offset(v + 1); k < end; k++) {
+					int w = graph.target(k);
+					if (dist[w] == dist[v] + graph.weight(k) && w != v) {
+						d += (sigma[v] / sigma[w]) * (1 + delta[w]);
+					}
+				}
+				delta[v] = d;
+
+				if (v != s) {
+					centrality[v] += d;
+				}
+			}
+		}
+
+		return centrality;
+	}
+
+	/**
+	 * Sets the "cent" property of the vertices in the given graph from the
+	 * computed centralities
+	 *
+	 * @param target
+	 * @throws IOException
+	 */
+	public void saveCentralities(MGraph target) throws IOException {
+		graph.forEachId((id, v) -> {
+			Vertex vertex = target.getVertex(id);
+			if (vertex != null) {
+				vertex.setProperty("cent", centrality[v]);
+			}
+		});
+	}
+
+	/**
+	 * Writes one "id TAB centrality" line per vertex to the given file
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void saveCentralities(Path file) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			graph.forEachId((id, v) -> {
+				try {
+					writer.write(id + "\t" + centrality[v]);
+					writer.newLine();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Breadth first search for unweighted graphs. The order array doubles as
+	 * the queue
+	 *
+	 * @param s
+	 * @return number of reached vertices
+	 */
+	private int bfs(int s) {
+		int head = 0;
+		int tail = 0;
+
+		dist[s] = 0;
+		sigma[s] = 1;
+		order[tail++] = s;
+		while (head < tail) {
+			int v = order[head++];
+			for (long k = graph.offset(v), end = graph.offset(v + 1); k < end; k++) {
+				int w = graph.target(k);
+				if (dist[w] == Double.POSITIVE_INFINITY) {
+					dist[w] = dist[v] + 1;
+					order[tail++] = w;
+				}
+				if (dist[w] == dist[v] + 1) {
+					sigma[w] += sigma[v];
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Dijkstra for weighted graphs
+	 *
+	 * @param s
+	 * @return number of reached vertices
+	 */
+	private int dijkstra(int s) {
+		int settled = 0;
+
+		dist[s] = 0;
+		sigma[s] = 1;
+		heap.clear();
+		heap.add(s);
+		while (!heap.isEmpty()) {
+			int v = heap.poll();
+			order[settled++] = v;
+
+			for (long k = graph.offset(v), end = graph.offset(v + 1); k < end; k++) {
+				int w = graph.target(k);
+				double forwardDistance = dist[v] + graph.weight(k);
+
+				// found a shorter path
+				if (forwardDistance < dist[w]) {
+					boolean unvisited = dist[w] == Double.POSITIVE_INFINITY;
+					dist[w] = forwardDistance;
+					sigma[w] = 0;
+					if (unvisited) {
+						heap.add(w);
+					} else {
+						heap.decreased(w);
+					}
+				}
+
+				if (dist[w] == forwardDistance) {
+					sigma[w] += sigma[v];
+				}
+			}
+		}
+		return settled;
+	}
+}
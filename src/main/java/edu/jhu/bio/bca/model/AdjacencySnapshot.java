@@ -0,0 +1,77 @@
+package edu.jhu.bio.bca.model;
+
+import cern.colt.matrix.DoubleMatrix2D;
+
+/**
+ * AdjacencySnapshot
+ * 
+ * Point in time view of the adjacency matrices of an {@link MGraph}. Later
+ * changes to the graph are not visible through the snapshot. The matrices are
+ * shared with the graph until it is modified, so they are returned as read
+ * only matrices; use copy() to get a writable one.
+ * 
+ * @author adeelq
+ *
+ */
+public class AdjacencySnapshot {
+
+	private final SymbolTable symbols;
+	// matrix index -> symbol id of the vertex
+	private final int[] indexSymbols;
+	private final DoubleMatrix2D adjacency;
+	private final DoubleMatrix2D directed;
+	private final DoubleMatrix2D weighted;
+
+	AdjacencySnapshot(SymbolTable symbols, int[] indexSymbols, DoubleMatrix2D adjacency, DoubleMatrix2D directed,
+			DoubleMatrix2D weighted) {
+		this.symbols = symbols;
+		this.indexSymbols = indexSymbols;
+		this.adjacency = adjacency;
+		this.directed = directed;
+		this.weighted = weighted;
+	}
+
+	/**
+	 * Undirected, unweighted adjacency matrix
+	 * 
+	 * @return
+	 */
+	public DoubleMatrix2D getAdjacency() {
+		return adjacency;
+	}
+
+	/**
+	 * Directed, unweighted adjacency matrix
+	 * 
+	 * @return
+	 */
+	public DoubleMatrix2D getDirectedAdjacency() {
+		return directed;
+	}
+
+	/**
+	 * Directed adjacency matrix holding the sum of edge weights
+	 * 
+	 * @return
+	 */
+	public DoubleMatrix2D getWeightedAdjacency() {
+		return weighted;
+	}
+
+	/**
+	 * Number of rows and columns of the matrices, i.e. the number of vertices
+	 * when the snapshot was taken
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return adjacency.rows();
+	}
+
+	public String getVertexIDForMatrixElement(int j) {
+		if (j < 0 || j >= size()) {
+			throw new IndexOutOfBoundsException("matrix element " + j);
+		}
+		return symbols.get(indexSymbols[j]);
+	}
+}
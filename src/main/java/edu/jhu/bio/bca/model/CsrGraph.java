@@ -0,0 +1,321 @@
+package edu.jhu.bio.bca.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * CsrGraph
+ *
+ * Read only graph in compressed sparse row (CSR) format that is memory mapped
+ * from disk, so that graphs larger than the heap can be analyzed. Row v lists
+ * the vertices reached from v by following edges backwards (the IN direction),
+ * which is the direction BetweennessCentrality traverses.
+ *
+ * File layout (big endian):
+ *
+ * <pre>
+ * header   int magic, int version, int flags, int vertexCount,
+ *          long edgeCount, long idsPosition
+ * offsets  long[vertexCount + 1]
+ * targets  int[edgeCount]
+ * weights  double[edgeCount], 8 byte aligned, only if weighted
+ * ids      vertexCount x (int length, utf-8 bytes)
+ * </pre>
+ *
+ * @author adeelq
+ *
+ */
+public class CsrGraph implements Closeable {
+
+	private static final int MAGIC = 0x42435352; // "BCSR"
+	private static final int VERSION = 1;
+	private static final int FLAG_WEIGHTED = 1;
+	private static final int HEADER_SIZE = 32;
+
+	// mapped segment size, a multiple of 8 so that no aligned value spans two
+	// segments
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private final Path file;
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+
+	private final int vertexCount;
+	private final long edgeCount;
+	private final boolean weighted;
+	private final long targetsPosition;
+	private final long weightsPosition;
+	private final long idsPosition;
+
+	private CsrGraph(Path file) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		long size = channel.size();
+		int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		segments = new MappedByteBuffer[count];
+		for (int i = 0; i < count; i++) {
+			long position = (long) i << SEGMENT_SHIFT;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+					Math.min(SEGMENT_MASK + 1, size - position));
+		}
+
+		if (size < HEADER_SIZE || getInt(0) != MAGIC) {
+			throw new IOException("not a CSR graph file " + file);
+		}
+		if (getInt(4) != VERSION) {
+			throw new IOException("unsupported CSR graph version " + getInt(4) + " in " + file);
+		}
+		weighted = (getInt(8) & FLAG_WEIGHTED) != 0;
+		vertexCount = getInt(12);
+		edgeCount = getLong(16);
+		idsPosition = getLong(24);
+		targetsPosition = HEADER_SIZE + 8L * (vertexCount + 1);
+		weightsPosition = align(targetsPosition + 4L * edgeCount);
+	}
+
+	/**
+	 * Maps the given CSR graph file
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static CsrGraph open(Path file) throws IOException {
+		return new CsrGraph(file);
+	}
+
+	/**
+	 * Writes the given graph to a CSR graph file. Vertices are numbered in the
+	 * order the graph returns them
+	 *
+	 * @param graph
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(MGraph graph, Path file) throws IOException {
+		SymbolTable ids = new SymbolTable();
+		for (Vertex v : graph.getVertices()) {
+			ids.intern(v.getId().toString());
+		}
+
+		int edgeCount = count(graph.getEdges());
+		int[] from = new int[edgeCount];
+		int[] to = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		boolean weighted = false;
+
+		int e = 0;
+		for (Edge edge : graph.getEdges()) {
+			from[e] = ids.indexOf(edge.getVertex(Direction.OUT).getId().toString());
+			to[e] = ids.indexOf(edge.getVertex(Direction.IN).getId().toString());
+			Object weight = edge.getProperty("weight");
+			weights[e] = weight instanceof Number ? ((Number) weight).doubleValue() : 1;
+			weighted |= weight != null;
+			e++;
+		}
+
+		write(ids, from, to, weighted ? weights : null, edgeCount, file);
+	}
+
+	/**
+	 * Writes a CSR graph file from an edge list. Vertex v is the symbol with
+	 * id v in the given table
+	 *
+	 * @param ids
+	 * @param from
+	 * @param to
+	 * @param weights
+	 *            edge weights, null for an unweighted graph
+	 * @param edgeCount
+	 *            number of edges in the arrays
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(SymbolTable ids, int[] from, int[] to, double[] weights, int edgeCount, Path file)
+			throws IOException {
+		int vertexCount = ids.size();
+		boolean weighted = weights != null;
+
+		// rows hold the IN edges, so bucket the edges by their "to" vertex
+		long[] offsets = new long[vertexCount + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			offsets[to[e] + 1]++;
+		}
+		for (int v = 0; v < vertexCount; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] rows = new int[edgeCount];
+		int[] next = new int[vertexCount];
+		for (int v = 0; v < vertexCount; v++) {
+			next[v] = (int) offsets[v];
+		}
+		for (int e = 0; e < edgeCount; e++) {
+			rows[next[to[e]]++] = e;
+		}
+
+		long targetsPosition = HEADER_SIZE + 8L * (vertexCount + 1);
+		long weightsPosition = align(targetsPosition + 4L * edgeCount);
+		long idsPosition = weighted ? weightsPosition + 8L * edgeCount : weightsPosition;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),
+				1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(weighted ? FLAG_WEIGHTED : 0);
+			out.writeInt(vertexCount);
+			out.writeLong(edgeCount);
+			out.writeLong(idsPosition);
+
+			// offsets
+			for (long offset : offsets) {
+				out.writeLong(offset);
+			}
+
+			// targets
+			for (int e : rows) {
+				out.writeInt(from[e]);
+			}
+			for (long p = targetsPosition + 4L * edgeCount; p < weightsPosition; p++) {
+				out.writeByte(0);
+			}
+
+			// weights
+			if (weighted) {
+				for (int e : rows) {
+					out.writeDouble(weights[e]);
+				}
+			}
+
+			// vertex ids
+			for (int v = 0; v < vertexCount; v++) {
+				byte[] bytes = ids.get(v).getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	public boolean isWeighted() {
+		return weighted;
+	}
+
+	/**
+	 * Index of the first entry of row v. Row v ends at offset(v + 1)
+	 *
+	 * @param v
+	 * @return
+	 */
+	public long offset(int v) {
+		return getLong(HEADER_SIZE + 8L * v);
+	}
+
+	public int target(long k) {
+		return getInt(targetsPosition + 4L * k);
+	}
+
+	/**
+	 * Weight of entry k. Unweighted graphs have a weight of 1 everywhere
+	 *
+	 * @param k
+	 * @return
+	 */
+	public double weight(long k) {
+		return weighted ? getDouble(weightsPosition + 8L * k) : 1;
+	}
+
+	/**
+	 * Reads the vertex ids into a symbol table whose symbol ids are the vertex
+	 * numbers of this graph
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public SymbolTable readIds() throws IOException {
+		SymbolTable ids = new SymbolTable(vertexCount);
+		forEachId((id, v) -> ids.intern(id));
+		return ids;
+	}
+
+	/**
+	 * Streams the vertex ids in vertex number order, so that results can be
+	 * written out without holding all ids on the heap
+	 *
+	 * @param consumer
+	 *            called with each id and its vertex number
+	 * @throws IOException
+	 */
+	public void forEachId(ObjIntConsumer<String> consumer) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			long skipped = 0;
+			while (skipped < idsPosition) {
+				skipped += in.skip(idsPosition - skipped);
+			}
+			DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+			byte[] bytes = new byte[256];
+			for (int v = 0; v < vertexCount; v++) {
+				int length = data.readInt();
+				if (length > bytes.length) {
+					bytes = new byte[Math.max(length, bytes.length * 2)];
+				}
+				data.readFully(bytes, 0, length);
+				consumer.accept(new String(bytes, 0, length, StandardCharsets.UTF_8), v);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private int getInt(long position) {
+		return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK));
+	}
+
+	private long getLong(long position) {
+		return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+	}
+
+	private double getDouble(long position) {
+		return segments[(int) (position >>> SEGMENT_SHIFT)].getDouble((int) (position & SEGMENT_MASK));
+	}
+
+	@SuppressWarnings("unused")
+	private static <T> int count(Iterable<T> recs) {
+		int count = 0;
+		for (T rec : recs) {
+			count++;
+		}
+		return count;
+	}
+
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+}
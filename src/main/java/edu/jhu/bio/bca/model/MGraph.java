@@ -1,7 +1,6 @@
 package edu.jhu.bio.bca.model;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import cern.colt.matrix.DoubleMatrix2D;
 import cern.colt.matrix.impl.SparseDoubleMatrix2D;
@@ -12,54 +11,431 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 
 /**
+ * Graph that keeps its adjacency matrices in sync with the vertices and edges.
+ * The matrices are built on first use and from then on updated on every
+ * addVertex, addEdge, removeEdge, removeVertex and setEdgeWeight call, so they
+ * are never stale and never rebuilt. Self loops are not recorded.
+ * 
+ * Vertex ids are interned into a {@link SymbolTable} only once the matrices
+ * are built, so a graph that is never analyzed as a matrix carries no index.
+ * A graph created from a GraphBuilder shares the builder's table, so the ids
+ * it already interned are not interned again.
+ * 
+ * Matrix indices are always 0 to vertex count - 1. When a vertex is removed the
+ * vertex with the last index takes over its index, so the matrices never hold
+ * rows for removed vertices.
+ * 
+ * Colt indexes a matrix with a single int, so the matrices are limited to
+ * 46340 vertices. Larger graphs (e.g. the millions of addresses of a full mail
+ * archive) can still be built, but getAdjacency and the other matrix methods
+ * fail for them; use the disk engine on a {@link CsrGraph} instead.
+ * 
  * @author C. Savkli, Feb 11, 2015
  * @version 1.0
  */
 
 public class MGraph extends TinkerGraph {
 	private static final long serialVersionUID = 1L;
+
+	// largest square matrix that colt can index with an int
+	public static final int MAX_DIMENSION = 46340;
+	private static final int INITIAL_DIMENSION = 1024;
+
+	// undirected, unweighted
 	private DoubleMatrix2D adjacency = null;
-	private Map<String, Integer> vertexIndices = null;
-	private Map<Integer, String> vertexIDs = null;
+	// directed, unweighted
+	private DoubleMatrix2D directed = null;
+	// directed, sum of edge weights
+	private DoubleMatrix2D weighted = null;
+	// allocated rows/columns of the matrices above
+	private int dimension = 0;
+	// true while a snapshot references the current matrices and indices
+	private boolean shared = false;
+
+	// interned vertex ids, ids of removed vertices stay in the table. Created
+	// with the matrices unless a table is given
+	private SymbolTable symbols;
+	// symbol id -> matrix index, -1 if there is no such vertex. The index
+	// arrays exist only while the matrices do
+	private int[] symbolIndices = null;
+	// matrix index -> symbol id of the vertex
+	private int[] indexSymbols = null;
 	private int vertexCount = 0;
 
+	public MGraph() {
+		this(null);
+	}
+
+	/**
+	 * Creates a graph that interns its vertex ids into the given table, e.g.
+	 * the table of the GraphBuilder that already holds them
+	 * 
+	 * @param symbols
+	 */
+	public MGraph(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Undirected, unweighted adjacency matrix of the graph. The returned matrix
+	 * is read only, use copy() for a writable one. It describes the graph at
+	 * the time of the call: the matrices are reallocated when they grow or
+	 * while a snapshot shares them, so later changes may or may not show
+	 * through it. Call the getter again after modifying the graph, or use
+	 * {@link #snapshot()} for matrices that are guaranteed not to change
+	 * 
+	 * @return
+	 */
 	public DoubleMatrix2D getAdjacency() {
-		if (adjacency == null)
-			initAdjacency();
-		return adjacency;
+		initAdjacency();
+		return view(adjacency);
+	}
+
+	/**
+	 * Directed, unweighted adjacency matrix of the graph. Element (i, j) is 1
+	 * if there is an edge from i to j. See {@link #getAdjacency()} for how long
+	 * the returned matrix is valid
+	 * 
+	 * @return
+	 */
+	public DoubleMatrix2D getDirectedAdjacency() {
+		initAdjacency();
+		return view(directed);
+	}
+
+	/**
+	 * Directed adjacency matrix of the graph where element (i, j) is the sum of
+	 * the weights of all edges from i to j. Edges without a weight count as 1.
+	 * See {@link #getAdjacency()} for how long the returned matrix is valid
+	 * 
+	 * @return
+	 */
+	public DoubleMatrix2D getWeightedAdjacency() {
+		initAdjacency();
+		return view(weighted);
+	}
+
+	/**
+	 * Returns an immutable view of the current adjacency matrices. Taking a
+	 * snapshot does not copy anything, the matrices are copied only if the
+	 * graph is modified while the snapshot is still referencing them
+	 * 
+	 * @return
+	 */
+	public AdjacencySnapshot snapshot() {
+		initAdjacency();
+		shared = true;
+		return new AdjacencySnapshot(symbols, indexSymbols, view(adjacency), view(directed), view(weighted));
+	}
+
+	public String getVertexIDForMatrixElement(int j) {
+		initAdjacency();
+		if (j < 0 || j >= vertexCount) {
+			throw new IndexOutOfBoundsException("matrix element " + j);
+		}
+		return symbols.get(indexSymbols[j]);
+	}
+
+	/**
+	 * Matrix index of the vertex with the given id. The index of a vertex can
+	 * change when another vertex is removed
+	 * 
+	 * @param id
+	 * @return index or -1 if there is no such vertex
+	 */
+	public int getMatrixElementForVertexID(String id) {
+		initAdjacency();
+		return matrixIndexOf(id);
+	}
+
+	/**
+	 * Sets the weight of the given edge and updates the weighted adjacency
+	 * matrix. Edge weights should be changed through this method rather than
+	 * by setting the "weight" property directly
+	 * 
+	 * @param edge
+	 * @param weight
+	 */
+	public void setEdgeWeight(Edge edge, double weight) {
+		edge.setProperty("weight", weight);
+		if (adjacency != null) {
+			refreshPair(edge.getVertex(Direction.OUT), edge.getVertex(Direction.IN));
+		}
+	}
+
+	@Override
+	public Vertex addVertex(Object id) {
+		Vertex vertex = super.addVertex(id);
+		if (adjacency == null) {
+			return vertex;
+		}
+		if (vertexCount == MAX_DIMENSION) {
+			// too many vertices for the matrices, getAdjacency fails until
+			// vertices are removed again
+			releaseMatrices();
+			return vertex;
+		}
+
+		int symbol = symbols.intern(vertex.getId().toString());
+		if (symbol >= symbolIndices.length) {
+			int length = symbolIndices.length;
+			symbolIndices = Arrays.copyOf(symbolIndices, Math.max(symbol + 1, length * 2));
+			Arrays.fill(symbolIndices, length, symbolIndices.length, -1);
+		}
+		if (vertexCount == indexSymbols.length) {
+			indexSymbols = Arrays.copyOf(indexSymbols, vertexCount * 2);
+		}
+		symbolIndices[symbol] = vertexCount;
+		indexSymbols[vertexCount] = symbol;
+		vertexCount++;
+		ensureDimension(vertexCount);
+		return vertex;
+	}
+
+	@Override
+	public Edge addEdge(Object id, Vertex outVertex, Vertex inVertex, String label) {
+		Edge edge = super.addEdge(id, outVertex, inVertex, label);
+		if (adjacency != null) {
+			int i = indexOf(outVertex);
+			int j = indexOf(inVertex);
+			if (i != j) {
+				prepareForWrite();
+				weighted.setQuick(i, j, weighted.getQuick(i, j) + getWeight(edge));
+				directed.setQuick(i, j, 1.0);
+				adjacency.setQuick(i, j, 1.0);
+				adjacency.setQuick(j, i, 1.0);
+			}
+		}
+		return edge;
+	}
+
+	@Override
+	public void removeEdge(Edge edge) {
+		Vertex from = edge.getVertex(Direction.OUT);
+		Vertex to = edge.getVertex(Direction.IN);
+		super.removeEdge(edge);
+		if (adjacency != null) {
+			refreshPair(from, to);
+		}
+	}
+
+	@Override
+	public void removeVertex(Vertex vertex) {
+		if (adjacency == null) {
+			super.removeVertex(vertex);
+			return;
+		}
+
+		int i = indexOf(vertex);
+		// incident edges are removed through removeEdge, which leaves row and
+		// column i empty
+		super.removeVertex(vertex);
+		prepareForWrite();
+		symbolIndices[indexSymbols[i]] = -1;
+
+		int last = --vertexCount;
+		if (i != last) {
+			moveVertex(last, i);
+		}
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		releaseMatrices();
 	}
 
 	private void initAdjacency() {
-		initVertexIndices();
+		if (adjacency != null) {
+			return;
+		}
+		int n = count(getVertices());
+		if (n > MAX_DIMENSION) {
+			throw new IllegalStateException("adjacency matrices support at most " + MAX_DIMENSION
+					+ " vertices, graph has " + n);
+		}
 
-		adjacency = new SparseDoubleMatrix2D(vertexCount, vertexCount);
+		if (symbols == null) {
+			symbols = new SymbolTable(n);
+		}
+		indexSymbols = new int[Math.max(n, INITIAL_DIMENSION)];
+		vertexCount = 0;
+		for (Vertex v : getVertices()) {
+			indexSymbols[vertexCount++] = symbols.intern(v.getId().toString());
+		}
+		symbolIndices = new int[symbols.size()];
+		Arrays.fill(symbolIndices, -1);
+		for (int i = 0; i < vertexCount; i++) {
+			symbolIndices[indexSymbols[i]] = i;
+		}
+
+		dimension = 0;
+		ensureDimension(vertexCount);
 
 		for (Edge e : getEdges()) {
-			Vertex from = e.getVertex(Direction.OUT);
-			int i = vertexIndices.get(from.getId().toString());
-			Vertex to = e.getVertex(Direction.IN);
-			int j = vertexIndices.get(to.getId().toString());
+			int i = indexOf(e.getVertex(Direction.OUT));
+			int j = indexOf(e.getVertex(Direction.IN));
 			if (i != j) {
-				adjacency.set(i, j, 1.0);
-				adjacency.set(j, i, 1.0);
+				weighted.setQuick(i, j, weighted.getQuick(i, j) + getWeight(e));
+				directed.setQuick(i, j, 1.0);
+				adjacency.setQuick(i, j, 1.0);
+				adjacency.setQuick(j, i, 1.0);
 			}
 		}
 	}
 
-	public String getVertexIDForMatrixElement(int j) {
-		return vertexIDs.get(j);
+	/**
+	 * Recomputes the matrix elements for the given pair of vertices from the
+	 * edges that are still between them
+	 * 
+	 * @param from
+	 * @param to
+	 */
+	private void refreshPair(Vertex from, Vertex to) {
+		int i = indexOf(from);
+		int j = indexOf(to);
+		if (i == j) {
+			return;
+		}
+
+		boolean connected = false;
+		double weight = 0;
+		for (Edge e : from.getEdges(Direction.OUT)) {
+			if (e.getVertex(Direction.IN) == to) {
+				connected = true;
+				weight += getWeight(e);
+			}
+		}
+
+		prepareForWrite();
+		weighted.setQuick(i, j, weight);
+		directed.setQuick(i, j, connected ? 1.0 : 0.0);
+		double undirected = connected || directed.getQuick(j, i) != 0 ? 1.0 : 0.0;
+		adjacency.setQuick(i, j, undirected);
+		adjacency.setQuick(j, i, undirected);
 	}
 
-	private void initVertexIndices() {
-		vertexIndices = new HashMap<>();
-		vertexIDs = new HashMap<>();
+	/**
+	 * Moves the vertex at matrix index from to the empty index to. Only the
+	 * elements of its neighbors are touched
+	 * 
+	 * @param from
+	 * @param to
+	 */
+	private void moveVertex(int from, int to) {
+		int symbol = indexSymbols[from];
+		Vertex vertex = getVertex(symbols.get(symbol));
+		for (Direction direction : new Direction[] { Direction.OUT, Direction.IN }) {
+			for (Vertex other : vertex.getVertices(direction)) {
+				int j = indexOf(other);
+				if (j != from) {
+					moveElement(from, j, to, j);
+					moveElement(j, from, j, to);
+				}
+			}
+		}
+		indexSymbols[to] = symbol;
+		symbolIndices[symbol] = to;
+	}
 
-		int counter = 0;
-		for (Vertex v : getVertices()) {
-			vertexIndices.put(v.getId().toString(), counter);
-			vertexIDs.put(counter, v.getId().toString());
-			counter++;
+	private void moveElement(int i, int j, int toI, int toJ) {
+		for (DoubleMatrix2D matrix : new DoubleMatrix2D[] { adjacency, directed, weighted }) {
+			double value = matrix.getQuick(i, j);
+			// parallel edges visit the same element again, it is moved by then
+			if (value != 0) {
+				matrix.setQuick(toI, toJ, value);
+				matrix.setQuick(i, j, 0);
+			}
+		}
+	}
+
+	/**
+	 * Copies the matrices and indices if a snapshot is still referencing them
+	 */
+	private void prepareForWrite() {
+		if (shared) {
+			adjacency = adjacency.copy();
+			directed = directed.copy();
+			weighted = weighted.copy();
+			indexSymbols = indexSymbols.clone();
+			shared = false;
 		}
-		vertexCount = counter;
+	}
+
+	/**
+	 * Drops the matrices and indices, they are rebuilt on next use
+	 */
+	private void releaseMatrices() {
+		// a snapshot may still reference the old index arrays, so they are
+		// never reused
+		symbolIndices = null;
+		indexSymbols = null;
+		vertexCount = 0;
+		adjacency = null;
+		directed = null;
+		weighted = null;
+		dimension = 0;
+		shared = false;
+	}
+
+	/**
+	 * Grows the matrices so that they have at least the given number of rows
+	 * and columns. Capacity is doubled to keep the cost of growing amortized
+	 * 
+	 * @param size
+	 */
+	private void ensureDimension(int size) {
+		if (adjacency != null && size <= dimension) {
+			return;
+		}
+
+		int capacity = Math.max(size, Math.min(Math.max(dimension * 2, INITIAL_DIMENSION), MAX_DIMENSION));
+		adjacency = grow(adjacency, capacity);
+		directed = grow(directed, capacity);
+		weighted = grow(weighted, capacity);
+		dimension = capacity;
+		// the grown matrices are not shared, the indices still are
+		if (shared) {
+			indexSymbols = indexSymbols.clone();
+			shared = false;
+		}
+	}
+
+	private DoubleMatrix2D grow(DoubleMatrix2D matrix, int capacity) {
+		DoubleMatrix2D grown = new SparseDoubleMatrix2D(capacity, capacity);
+		if (matrix != null) {
+			matrix.forEachNonZero((i, j, value) -> {
+				grown.setQuick(i, j, value);
+				return value;
+			});
+		}
+		return grown;
+	}
+
+	private DoubleMatrix2D view(DoubleMatrix2D matrix) {
+		return new ReadOnlyDoubleMatrix2D(matrix, vertexCount, vertexCount);
+	}
+
+	private int indexOf(Vertex vertex) {
+		return matrixIndexOf(vertex.getId().toString());
+	}
+
+	private int matrixIndexOf(String id) {
+		int symbol = symbols.indexOf(id);
+		return symbol >= 0 && symbol < symbolIndices.length ? symbolIndices[symbol] : -1;
+	}
+
+	@SuppressWarnings("unused")
+	private static <T> int count(Iterable<T> recs) {
+		int count = 0;
+		for (T rec : recs) {
+			count++;
+		}
+		return count;
+	}
+
+	private double getWeight(Edge edge) {
+		Object weight = edge.getProperty("weight");
+		return weight instanceof Number ? ((Number) weight).doubleValue() : 1.0;
 	}
 }
@@ -0,0 +1,75 @@
+package edu.jhu.bio.bca.model;
+
+import cern.colt.matrix.DoubleMatrix1D;
+import cern.colt.matrix.DoubleMatrix2D;
+
+/**
+ * ReadOnlyDoubleMatrix1D
+ *
+ * Read only view of a row or column of a {@link ReadOnlyDoubleMatrix2D}
+ *
+ * @author adeelq
+ *
+ */
+class ReadOnlyDoubleMatrix1D extends DoubleMatrix1D {
+
+	private static final long serialVersionUID = 1L;
+
+	private final DoubleMatrix1D matrix;
+
+	ReadOnlyDoubleMatrix1D(DoubleMatrix1D matrix) {
+		this.matrix = matrix;
+		setUp(matrix.size());
+	}
+
+	@Override
+	public double getQuick(int index) {
+		return matrix.getQuick(index);
+	}
+
+	@Override
+	public void setQuick(int index, double value) {
+		throw new UnsupportedOperationException("read only matrix");
+	}
+
+	@Override
+	public int cardinality() {
+		return matrix.cardinality();
+	}
+
+	@Override
+	public DoubleMatrix1D like(int size) {
+		return matrix.like(size);
+	}
+
+	@Override
+	public DoubleMatrix2D like2D(int rows, int columns) {
+		return matrix.like2D(rows, columns);
+	}
+
+	@Override
+	public DoubleMatrix1D viewFlip() {
+		return new ReadOnlyDoubleMatrix1D(matrix.viewFlip());
+	}
+
+	@Override
+	public DoubleMatrix1D viewPart(int index, int width) {
+		return new ReadOnlyDoubleMatrix1D(matrix.viewPart(index, width));
+	}
+
+	@Override
+	public DoubleMatrix1D viewSelection(int[] indexes) {
+		return new ReadOnlyDoubleMatrix1D(matrix.viewSelection(indexes));
+	}
+
+	@Override
+	public DoubleMatrix1D viewStrides(int stride) {
+		return new ReadOnlyDoubleMatrix1D(matrix.viewStrides(stride));
+	}
+
+	// all views are created by the underlying matrix, see above
+	@Override
+	protected DoubleMatrix1D viewSelectionLike(int[] offsets) {
+		throw new UnsupportedOperationException();
+	}
+}
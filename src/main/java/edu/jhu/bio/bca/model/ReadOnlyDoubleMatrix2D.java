@@ -0,0 +1,226 @@
+package edu.jhu.bio.bca.model;
+
+import cern.colt.function.IntIntDoubleFunction;
+import cern.colt.list.DoubleArrayList;
+import cern.colt.list.IntArrayList;
+import cern.colt.matrix.DoubleMatrix1D;
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.impl.DenseDoubleMatrix2D;
+
+/**
+ * ReadOnlyDoubleMatrix2D
+ *
+ * Read only view of the top left rows x columns part of a matrix that
+ * {@link MGraph} keeps updating. Reads and views go to the underlying matrix,
+ * any write throws UnsupportedOperationException. copy() returns a writable
+ * copy.
+ *
+ * The underlying matrix is usually a larger sparse matrix, so the methods that
+ * only need the non-zero elements (forEachNonZero, getNonZeros, cardinality,
+ * zSum and zMult) walk its non-zeros instead of every element of the view.
+ *
+ * @author adeelq
+ *
+ */
+class ReadOnlyDoubleMatrix2D extends DoubleMatrix2D {
+
+	private static final long serialVersionUID = 1L;
+
+	private final DoubleMatrix2D matrix;
+
+	ReadOnlyDoubleMatrix2D(DoubleMatrix2D matrix) {
+		this(matrix, matrix.rows(), matrix.columns());
+	}
+
+	ReadOnlyDoubleMatrix2D(DoubleMatrix2D matrix, int rows, int columns) {
+		this.matrix = matrix;
+		setUp(rows, columns);
+	}
+
+	@Override
+	public double getQuick(int row, int column) {
+		return matrix.getQuick(row, column);
+	}
+
+	@Override
+	public void setQuick(int row, int column, double value) {
+		throw new UnsupportedOperationException("read only matrix");
+	}
+
+	@Override
+	public int cardinality() {
+		int[] count = new int[1];
+		forEachNonZero((i, j, value) -> {
+			count[0]++;
+			return value;
+		});
+		return count[0];
+	}
+
+	@Override
+	public double zSum() {
+		double[] sum = new double[1];
+		forEachNonZero((i, j, value) -> {
+			sum[0] += value;
+			return value;
+		});
+		return sum[0];
+	}
+
+	@Override
+	public DoubleMatrix2D forEachNonZero(IntIntDoubleFunction function) {
+		int rows = rows();
+		int columns = columns();
+		matrix.forEachNonZero((i, j, value) -> {
+			if (i < rows && j < columns && function.apply(i, j, value) != value) {
+				throw new UnsupportedOperationException("read only matrix");
+			}
+			return value;
+		});
+		return this;
+	}
+
+	@Override
+	public void getNonZeros(IntArrayList rowList, IntArrayList columnList, DoubleArrayList valueList) {
+		rowList.clear();
+		columnList.clear();
+		valueList.clear();
+		forEachNonZero((i, j, value) -> {
+			rowList.add(i);
+			columnList.add(j);
+			valueList.add(value);
+			return value;
+		});
+	}
+
+	@Override
+	public DoubleMatrix1D zMult(DoubleMatrix1D y, DoubleMatrix1D z, double alpha, double beta, boolean transposeA) {
+		int m = transposeA ? columns() : rows();
+		int n = transposeA ? rows() : columns();
+		if (z == null) {
+			z = new DenseDoubleMatrix1D(m);
+		}
+		if (y.size() != n || z.size() != m) {
+			throw new IllegalArgumentException("Incompatible args: " + toStringShort() + ", " + y.toStringShort()
+					+ ", " + z.toStringShort());
+		}
+
+		DoubleMatrix1D result = z;
+		for (int i = 0; i < m; i++) {
+			result.setQuick(i, beta == 0 ? 0 : beta * result.getQuick(i));
+		}
+		forEachNonZero((i, j, value) -> {
+			int row = transposeA ? j : i;
+			int column = transposeA ? i : j;
+			result.setQuick(row, result.getQuick(row) + alpha * value * y.getQuick(column));
+			return value;
+		});
+		return result;
+	}
+
+	@Override
+	public DoubleMatrix2D zMult(DoubleMatrix2D B, DoubleMatrix2D C, double alpha, double beta, boolean transposeA,
+			boolean transposeB) {
+		DoubleMatrix2D b = transposeB ? B.viewDice() : B;
+		int m = transposeA ? columns() : rows();
+		int n = transposeA ? rows() : columns();
+		int p = b.columns();
+		if (C == null) {
+			C = new DenseDoubleMatrix2D(m, p);
+		}
+		if (b.rows() != n || C.rows() != m || C.columns() != p) {
+			throw new IllegalArgumentException("Incompatible args: " + toStringShort() + ", " + b.toStringShort()
+					+ ", " + C.toStringShort());
+		}
+
+		DoubleMatrix2D result = C;
+		for (int i = 0; i < m; i++) {
+			for (int k = 0; k < p; k++) {
+				result.setQuick(i, k, beta == 0 ? 0 : beta * result.getQuick(i, k));
+			}
+		}
+		forEachNonZero((i, j, value) -> {
+			int row = transposeA ? j : i;
+			int column = transposeA ? i : j;
+			for (int k = 0; k < p; k++) {
+				result.setQuick(row, k, result.getQuick(row, k) + alpha * value * b.getQuick(column, k));
+			}
+			return value;
+		});
+		return result;
+	}
+
+	@Override
+	public DoubleMatrix2D like(int rows, int columns) {
+		return matrix.like(rows, columns);
+	}
+
+	@Override
+	public DoubleMatrix1D like1D(int size) {
+		return matrix.like1D(size);
+	}
+
+	@Override
+	public DoubleMatrix1D viewColumn(int column) {
+		return new ReadOnlyDoubleMatrix1D(part().viewColumn(column));
+	}
+
+	@Override
+	public DoubleMatrix2D viewColumnFlip() {
+		return new ReadOnlyDoubleMatrix2D(part().viewColumnFlip());
+	}
+
+	@Override
+	public DoubleMatrix2D viewDice() {
+		return new ReadOnlyDoubleMatrix2D(part().viewDice());
+	}
+
+	@Override
+	public DoubleMatrix2D viewPart(int row, int column, int height, int width) {
+		return new ReadOnlyDoubleMatrix2D(part().viewPart(row, column, height, width));
+	}
+
+	@Override
+	public DoubleMatrix1D viewRow(int row) {
+		return new ReadOnlyDoubleMatrix1D(part().viewRow(row));
+	}
+
+	@Override
+	public DoubleMatrix2D viewRowFlip() {
+		return new ReadOnlyDoubleMatrix2D(part().viewRowFlip());
+	}
+
+	@Override
+	public DoubleMatrix2D viewSelection(int[] rowIndexes, int[] columnIndexes) {
+		return new ReadOnlyDoubleMatrix2D(part().viewSelection(rowIndexes, columnIndexes));
+	}
+
+	@Override
+	public DoubleMatrix2D viewStrides(int rowStride, int columnStride) {
+		return new ReadOnlyDoubleMatrix2D(part().viewStrides(rowStride, columnStride));
+	}
+
+	// all views are created by the underlying matrix, see above
+	@Override
+	protected DoubleMatrix1D like1D(int size, int zero, int stride) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	protected DoubleMatrix2D viewSelectionLike(int[] rowOffsets, int[] columnOffsets) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * The part of the underlying matrix this matrix covers
+	 *
+	 * @return
+	 */
+	private DoubleMatrix2D part() {
+		if (rows() == matrix.rows() && columns() == matrix.columns()) {
+			return matrix;
+		}
+		return matrix.viewPart(0, 0, rows(), columns());
+	}
+}
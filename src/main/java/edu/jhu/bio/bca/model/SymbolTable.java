@@ -0,0 +1,220 @@
+package edu.jhu.bio.bca.model;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * SymbolTable
+ *
+ * Interns strings (e.g. email addresses) into dense int ids starting at 0. The
+ * characters of all interned strings are stored back to back in a single UTF-8
+ * byte pool, and lookups go through an open addressing hash table of ids, so
+ * the table holds no per-symbol objects regardless of how many addresses are
+ * interned.
+ *
+ * @author adeelq
+ *
+ */
+public class SymbolTable implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	// largest array most VMs can allocate
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+	private static final int MAX_SLOTS = 1 << 30;
+	// the slot table is kept at most half full
+	static final int MAX_SYMBOLS = MAX_SLOTS / 2;
+	// initial guess of the utf-8 length of a symbol
+	private static final int BYTES_PER_SYMBOL = 16;
+
+	// utf-8 bytes of all symbols, back to back
+	private byte[] pool;
+	private int poolSize;
+
+	// symbol id -> start of its bytes in the pool. offsets[id + 1] is the end
+	private int[] offsets;
+	// symbol id -> hash of its bytes
+	private int[] hashes;
+	private int size;
+
+	// open addressing slots holding symbol id + 1 (0 means empty)
+	private int[] slots;
+
+	public SymbolTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSymbols
+	 *            size hint, the table grows past it as needed
+	 */
+	public SymbolTable(int expectedSymbols) {
+		int capacity = Math.min(Math.max(16, expectedSymbols), MAX_SYMBOLS);
+		pool = new byte[poolSizeFor(capacity)];
+		offsets = new int[capacity + 1];
+		hashes = new int[capacity];
+		slots = new int[tableSizeFor(capacity * 2)];
+	}
+
+	/**
+	 * Normalizes an email address so that the same mailbox always maps to the
+	 * same symbol regardless of surrounding whitespace or letter case
+	 *
+	 * @param address
+	 * @return
+	 */
+	public static String normalize(String address) {
+		return address == null ? null : address.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Returns the id of the given symbol, adding it to the table if it is not
+	 * already present
+	 *
+	 * @param symbol
+	 * @return
+	 */
+	public int intern(String symbol) {
+		byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+		int hash = hash(bytes);
+		int mask = slots.length - 1;
+		int slot = hash & mask;
+		while (slots[slot] != 0) {
+			int id = slots[slot] - 1;
+			if (hashes[id] == hash && matches(id, bytes)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		int id = append(bytes, hash);
+		slots[slot] = id + 1;
+		if (size * 2 > slots.length && slots.length < MAX_SLOTS) {
+			rehash(slots.length * 2);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of the given symbol or -1 if it has not been interned
+	 *
+	 * @param symbol
+	 * @return
+	 */
+	public int indexOf(String symbol) {
+		byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+		int hash = hash(bytes);
+		int mask = slots.length - 1;
+		int slot = hash & mask;
+		while (slots[slot] != 0) {
+			int id = slots[slot] - 1;
+			if (hashes[id] == hash && matches(id, bytes)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the symbol with the given id
+	 *
+	 * @param id
+	 * @return
+	 */
+	public String get(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("unknown symbol id " + id);
+		}
+		return new String(pool, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private int append(byte[] bytes, int hash) {
+		if (size == hashes.length) {
+			if (size == MAX_SYMBOLS) {
+				throw new IllegalStateException("symbol table is full at " + MAX_SYMBOLS + " symbols");
+			}
+			int capacity = (int) Math.min(2L * hashes.length, MAX_SYMBOLS);
+			hashes = Arrays.copyOf(hashes, capacity);
+			offsets = Arrays.copyOf(offsets, capacity + 1);
+		}
+		long required = (long) poolSize + bytes.length;
+		if (required > pool.length) {
+			if (required > MAX_ARRAY_SIZE) {
+				throw new IllegalStateException("symbol table is full at " + poolSize + " bytes");
+			}
+			pool = Arrays.copyOf(pool, (int) Math.min(Math.max(2L * pool.length, required), MAX_ARRAY_SIZE));
+		}
+
+		System.arraycopy(bytes, 0, pool, poolSize, bytes.length);
+		poolSize += bytes.length;
+
+		int id = size++;
+		hashes[id] = hash;
+		offsets[id + 1] = poolSize;
+		return id;
+	}
+
+	private boolean matches(int id, byte[] bytes) {
+		int start = offsets[id];
+		int length = offsets[id + 1] - start;
+		if (length != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (pool[start + i] != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash(int capacity) {
+		slots = new int[capacity];
+		int mask = capacity - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hashes[id] & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = id + 1;
+		}
+	}
+
+	private static int hash(byte[] bytes) {
+		// FNV-1a followed by a final mix so that the low bits used for slot
+		// selection are well distributed
+		int h = 0x811c9dc5;
+		for (byte b : bytes) {
+			h ^= b;
+			h *= 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Initial size of the byte pool for the given number of symbols, computed
+	 * as a long so that large hints do not overflow
+	 *
+	 * @param capacity
+	 * @return
+	 */
+	static int poolSizeFor(int capacity) {
+		return (int) Math.min((long) BYTES_PER_SYMBOL * capacity, MAX_ARRAY_SIZE);
+	}
+
+	private static int tableSizeFor(int n) {
+		int size = 1;
+		while (size < n) {
+			size <<= 1;
+		}
+		return size;
+	}
+}
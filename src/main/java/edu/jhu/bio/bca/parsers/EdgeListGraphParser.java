@@ -0,0 +1,181 @@
+package edu.jhu.bio.bca.parsers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * EdgeListGraphParser
+ *
+ * Parses delimited edge lists with one "src dst [weight [timestamp]]" record
+ * per line, e.g. CSV files or the edges.txt/vertices.txt pair written by
+ * GraphUtils.saveGraphForPageRankWithSpark. Empty lines and lines starting with
+ * # are ignored. Weights must be positive and finite, lines with other weights
+ * are skipped as malformed.
+ *
+ * @author adeelq
+ *
+ */
+@Service
+public class EdgeListGraphParser implements StreamingGraphParser {
+
+	private static final Logger log = LoggerFactory.getLogger(EdgeListGraphParser.class);
+
+	private static final int MAX_FIELDS = 4;
+
+	private Options opts = new Options();
+
+	private byte delimiter;
+	private String verticesFile;
+
+	// start and end of the fields of the current line
+	private final int[] starts = new int[MAX_FIELDS];
+	private final int[] ends = new int[MAX_FIELDS];
+
+	public EdgeListGraphParser() {
+		opts.addOption("edgelist_parser_delimiter", true,
+				"Field delimiter of the edge list, use \\t for tab. default is any run of tabs, commas or spaces");
+		opts.addOption("edgelist_parser_vertices", true,
+				"File with \"id,name\" lines used to name the vertices. default is vertices.txt when the input is a folder");
+	}
+
+	@Override
+	public Options getOptions() {
+		return opts;
+	}
+
+	@Override
+	public void init(CommandLine cli) {
+		String value = cli.getOptionValue("edgelist_parser_delimiter");
+		delimiter = value == null ? 0 : "\\t".equals(value) ? (byte) '\t' : (byte) value.charAt(0);
+		verticesFile = cli.getOptionValue("edgelist_parser_vertices");
+	}
+
+	/**
+	 * Parses the given edge list file. If the path is a folder, the edges are
+	 * read from edges.txt in that folder
+	 */
+	@Override
+	public void parse(String path, EdgeSink sink) throws IOException {
+		Path edges = Paths.get(path);
+		Path vertices = verticesFile != null ? Paths.get(verticesFile) : null;
+		if (Files.isDirectory(edges)) {
+			if (vertices == null && Files.exists(edges.resolve("vertices.txt"))) {
+				vertices = edges.resolve("vertices.txt");
+			}
+			edges = edges.resolve("edges.txt");
+		}
+
+		Map<String, String> names = vertices != null ? readNames(vertices) : null;
+
+		long skipped = 0;
+		try (LineReader reader = new LineReader(edges)) {
+			while (reader.next()) {
+				int n = split(reader);
+				if (n == 0) {
+					continue;
+				}
+
+				try {
+					if (n < 2) {
+						throw new IllegalArgumentException("missing destination vertex");
+					}
+					String src = reader.substring(starts[0], ends[0]);
+					String dst = reader.substring(starts[1], ends[1]);
+					double weight = n > 2 ? Double.parseDouble(reader.substring(starts[2], ends[2])) : 1;
+					long timestamp = n > 3 ? Long.parseLong(reader.substring(starts[3], ends[3])) : 0;
+					if (weight <= 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+						throw new IllegalArgumentException("invalid weight " + weight);
+					}
+
+					if (names != null) {
+						src = names.getOrDefault(src, src);
+						dst = names.getOrDefault(dst, dst);
+					}
+					sink.edge(src, dst, weight, timestamp);
+				} catch (IllegalArgumentException e) {
+					if (skipped++ == 0) {
+						log.warn("skipping malformed edge \"" + reader.line() + "\" in " + edges + " => "
+								+ e.getMessage());
+					}
+				}
+			}
+		}
+		if (skipped > 0) {
+			log.warn("skipped " + skipped + " malformed edges in " + edges);
+		}
+	}
+
+	/**
+	 * Reads "id,name" lines. The vertices file always uses a comma whatever
+	 * the edge delimiter is, and the name is the rest of the line after the
+	 * first comma
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	private Map<String, String> readNames(Path file) throws IOException {
+		Map<String, String> names = new HashMap<>();
+		try (LineReader reader = new LineReader(file)) {
+			while (reader.next()) {
+				int length = reader.length();
+				if (length == 0 || reader.byteAt(0) == '#') {
+					continue;
+				}
+				int comma = 0;
+				while (comma < length && reader.byteAt(comma) != ',') {
+					comma++;
+				}
+				if (comma < length) {
+					names.put(reader.substring(0, comma), reader.substring(comma + 1));
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Finds the fields of the current line
+	 *
+	 * @param reader
+	 * @return number of fields, 0 for empty and comment lines
+	 */
+	private int split(LineReader reader) {
+		int length = reader.length();
+		if (length == 0 || reader.byteAt(0) == '#') {
+			return 0;
+		}
+
+		int n = 0;
+		int i = 0;
+		while (i < length && n < MAX_FIELDS) {
+			// skip delimiters
+			while (i < length && isDelimiter(reader.byteAt(i))) {
+				i++;
+			}
+			if (i == length) {
+				break;
+			}
+			starts[n] = i;
+			while (i < length && !isDelimiter(reader.byteAt(i))) {
+				i++;
+			}
+			ends[n++] = i;
+		}
+		return n;
+	}
+
+	private boolean isDelimiter(byte b) {
+		return delimiter == 0 ? b == '\t' || b == ',' || b == ' ' : b == delimiter;
+	}
+}
@@ -0,0 +1,22 @@
+package edu.jhu.bio.bca.parsers;
+
+/**
+ * Receives the edges a {@link StreamingGraphParser} reads from its input
+ * 
+ * @author adeelq
+ *
+ */
+public interface EdgeSink {
+
+	/**
+	 * Records an edge from src to dst. Repeated edges between the same pair of
+	 * vertices are aggregated by the sink
+	 * 
+	 * @param src
+	 * @param dst
+	 * @param weight
+	 * @param timestamp
+	 *            milliseconds since the epoch, 0 if unknown
+	 */
+	void edge(String src, String dst, double weight, long timestamp);
+}
@@ -10,13 +10,13 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Arrays;
 import java.util.Properties;
-import java.util.UUID;
 
 import javax.mail.Address;
 import javax.mail.Message.RecipientType;
 import javax.mail.MessagingException;
 import javax.mail.Session;
 import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
 import org.apache.commons.cli.CommandLine;
@@ -26,14 +26,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import com.tinkerpop.blueprints.Direction;
-import com.tinkerpop.blueprints.Edge;
-import com.tinkerpop.blueprints.Vertex;
-
 import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.model.SymbolTable;
 
 @Service
-public class EmailGraphParser extends SimpleFileVisitor<Path> implements GraphParser {
+public class EmailGraphParser extends SimpleFileVisitor<Path> implements StreamingGraphParser {
 
 	private static final Logger log = LoggerFactory.getLogger(EmailGraphParser.class);
 
@@ -42,7 +39,7 @@ public class EmailGraphParser extends SimpleFileVisitor<Path> implements GraphPa
 	private int dirCount;
 	private int fileCount;
 
-	private MGraph graph = new MGraph();
+	private EdgeSink sink;
 	private Options opts = new Options();
 
 	private boolean processing = false;
@@ -72,41 +69,40 @@ public class EmailGraphParser extends SimpleFileVisitor<Path> implements GraphPa
 		weightThreshold = Integer.parseInt(cli.getOptionValue("email_parser_edge_min_weight", "25"));
 	}
 
+	@Override
+	public double getMinEdgeWeight() {
+		return weightThreshold;
+	}
+
 	@Override
 	public MGraph parse(String path) {
+		GraphBuilder builder = new GraphBuilder();
 		try {
 			// scan all directories
-			Files.walkFileTree(Paths.get(path), this);
+			parse(path, builder);
 			System.out.println("Directories processed = " + dirCount);
 			System.out.println("Files processed = " + fileCount);
-			System.out.println("Graph generated with " + count(graph.getVertices()) + " vertices and "
-					+ count(graph.getEdges()) + " edges ");
+			System.out.println("Graph generated with " + builder.getVertexCount() + " vertices and "
+					+ builder.getEdgeCount() + " edges ");
 		} catch (IOException e) {
 			log.error("error in parsing input data", e);
 		}
 
-		try {
-			// remove edges and nodes that are less than the given weight
-			// threshold
-			for (Edge edge : graph.getEdges()) {
-				if ((double) edge.getProperty("weight") < weightThreshold) {
-					graph.removeEdge(edge);
-				}
-			}
-			for (Vertex vertex : graph.getVertices()) {
-				if (count(vertex.getEdges(Direction.BOTH)) == 0) {
-					graph.removeVertex(vertex);
-				}
-			}
-			System.out.println("Graph reduced (based on weight threshold) to " + count(graph.getVertices())
-					+ " vertices and " + count(graph.getEdges()) + " edges");
-		} catch (Exception e) {
-			log.error("error in removing light weight edges from the graph", e);
-		}
+		// leave out edges and nodes that are less than the given weight
+		// threshold
+		MGraph graph = builder.toGraph(weightThreshold);
+		System.out.println("Graph reduced (based on weight threshold) to " + count(graph.getVertices())
+				+ " vertices and " + count(graph.getEdges()) + " edges");
 
 		return graph;
 	}
 
+	@Override
+	public void parse(String path, EdgeSink sink) throws IOException {
+		this.sink = sink;
+		Files.walkFileTree(Paths.get(path), this);
+	}
+
 	@Override
 	public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 		if (!processing) {
@@ -119,10 +115,11 @@ public class EmailGraphParser extends SimpleFileVisitor<Path> implements GraphPa
 			// convert file to email message
 			try (FileInputStream fis = new FileInputStream(file.toFile())) {
 				MimeMessage message = new MimeMessage(s, fis);
+				long timestamp = message.getSentDate() != null ? message.getSentDate().getTime() : 0;
 
 				// retrieve FROM email address
 				for (Address fromEmail : message.getFrom()) {
-					String from = fromEmail.toString();
+					String from = SymbolTable.normalize(toAddress(fromEmail));
 					// only interested in @enron.com addresses
 					if (!StringUtils.isEmpty(suffix) && !from.endsWith(suffix)) {
 						continue;
@@ -135,8 +132,9 @@ public class EmailGraphParser extends SimpleFileVisitor<Path> implements GraphPa
 							Address[] recipients = message.getRecipients(type);
 
 							for (Address email : recipients) {
-								if (StringUtils.isEmpty(suffix) || email.toString().endsWith(suffix)) {
-									addEmailPair(from.toLowerCase(), email.toString(), type, recipients.length);
+								String to = SymbolTable.normalize(toAddress(email));
+								if (StringUtils.isEmpty(suffix) || to.endsWith(suffix)) {
+									addEmailPair(from, to, type, recipients.length, timestamp);
 								}
 							}
 						}
@@ -154,50 +152,27 @@ public class EmailGraphParser extends SimpleFileVisitor<Path> implements GraphPa
 	}
 
 	/**
-	 * Creates an email pair as two vertices in the graph with an edge between
-	 * them. The edge weight corresponds to the number of emails sent between
-	 * the two users
+	 * Sends an email pair as an edge between the two users. The sink adds up
+	 * the weights so that the edge weight corresponds to the number of emails
+	 * sent between the two users
 	 * 
 	 * @param from
 	 * @param to
 	 * @param type
 	 * @param n
+	 * @param timestamp
 	 */
-	private void addEmailPair(String from, String to, RecipientType type, int n) {
-		Vertex fromVertex = graph.getVertex(from);
-		if (fromVertex == null) {
-			// add new FROM vertex
-			fromVertex = graph.addVertex(from);
-		}
-
-		Vertex toVertex = graph.getVertex(to);
-		if (toVertex == null) {
-			// add new TO vertex
-			toVertex = graph.addVertex(to);
-		}
-
-		Edge edge = null;
-		for (Edge e : fromVertex.getEdges(Direction.OUT)) {
-			if (e.getVertex(Direction.IN) == toVertex) {
-				edge = e;
-			}
-		}
-
-		if (edge == null) {
-			// add new edge
-			edge = graph.addEdge(UUID.randomUUID().toString(), fromVertex, toVertex, "e");
-		}
-
+	private void addEmailPair(String from, String to, RecipientType type, int n, long timestamp) {
 		// compute weight
 		double weight = type == RecipientType.TO ? 1 : (double) 1 / n;
-		if (edge.getProperty("weight") != null) {
-			weight += (double) edge.getProperty("weight");
-		}
-		edge.setProperty("weight", weight);
+		sink.edge(from, to, weight, timestamp);
+	}
 
-		// System.out.println(from + " -> " + to + " (type) = " + type +
-		// ", (n) = " + n + ", (weight) = " + w
-		// + ", (edge-weight) = " + weight);
+	private String toAddress(Address address) {
+		if (address instanceof InternetAddress) {
+			return ((InternetAddress) address).getAddress();
+		}
+		return address.toString();
 	}
 
 	@Override
@@ -0,0 +1,243 @@
+package edu.jhu.bio.bca.parsers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.model.CsrGraph;
+import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.model.SymbolTable;
+
+/**
+ * GraphBuilder
+ *
+ * {@link EdgeSink} that aggregates edges in primitive arrays. Vertex ids are
+ * interned into a {@link SymbolTable} and every distinct (src, dst) pair is
+ * kept once with the sum of its weights and its latest timestamp. The result
+ * can be turned into an {@link MGraph} or written straight to a
+ * {@link CsrGraph} file.
+ *
+ * @author adeelq
+ *
+ */
+public class GraphBuilder implements EdgeSink {
+
+	private final SymbolTable symbols = new SymbolTable();
+
+	private int[] from = new int[1024];
+	private int[] to = new int[1024];
+	private double[] weights = new double[1024];
+	private long[] timestamps = new long[1024];
+	private int edgeCount;
+
+	// open addressing slots mapping (from, to) to edge index + 1
+	private long[] keys = new long[2048];
+	private int[] slots = new int[2048];
+
+	@Override
+	public void edge(String src, String dst, double weight, long timestamp) {
+		checkOpen();
+		int s = symbols.intern(src);
+		int d = symbols.intern(dst);
+		long key = ((long) s << 32) | (d & 0xffffffffL);
+
+		int mask = slots.length - 1;
+		int slot = hash(key) & mask;
+		while (slots[slot] != 0) {
+			if (keys[slot] == key) {
+				int e = slots[slot] - 1;
+				weights[e] += weight;
+				timestamps[e] = Math.max(timestamps[e], timestamp);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (edgeCount == from.length) {
+			int capacity = edgeCount * 2;
+			from = Arrays.copyOf(from, capacity);
+			to = Arrays.copyOf(to, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+			timestamps = Arrays.copyOf(timestamps, capacity);
+		}
+		int e = edgeCount++;
+		from[e] = s;
+		to[e] = d;
+		weights[e] = weight;
+		timestamps[e] = timestamp;
+
+		keys[slot] = key;
+		slots[slot] = e + 1;
+		if (edgeCount * 2 > slots.length) {
+			rehash(slots.length * 2);
+		}
+	}
+
+	public int getVertexCount() {
+		return symbols.size();
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Creates a graph with all the aggregated edges
+	 *
+	 * @return
+	 */
+	public MGraph toGraph() {
+		return toGraph(Double.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Creates a graph with the aggregated edges whose weight is at least the
+	 * given weight. Vertices that are left without edges are not added
+	 *
+	 * @param minWeight
+	 * @return
+	 */
+	public MGraph toGraph(double minWeight) {
+		checkOpen();
+		// the graph shares the symbol table, so the ids are not interned twice
+		MGraph graph = new MGraph(symbols);
+		Vertex[] vertices = new Vertex[symbols.size()];
+
+		for (int e = 0; e < edgeCount; e++) {
+			if (weights[e] < minWeight) {
+				continue;
+			}
+			Vertex fromVertex = getOrAddVertex(graph, vertices, from[e]);
+			Vertex toVertex = getOrAddVertex(graph, vertices, to[e]);
+
+			Edge edge = graph.addEdge(null, fromVertex, toVertex, "e");
+			graph.setEdgeWeight(edge, weights[e]);
+			if (timestamps[e] != 0) {
+				edge.setProperty("time", timestamps[e]);
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Writes all the aggregated edges to a CSR graph file without creating an
+	 * {@link MGraph}. See {@link #writeCsr(Path, double)}
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeCsr(Path file) throws IOException {
+		writeCsr(file, Double.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Writes the aggregated edges whose weight is at least the given weight to
+	 * a CSR graph file. Like {@link #toGraph(double)}, vertices that are left
+	 * without edges are not written. The file is unweighted if every written
+	 * edge has a weight of 1.
+	 *
+	 * The edges are filtered in place to keep the heap needed for large graphs
+	 * down, so the builder can not be used afterwards
+	 *
+	 * @param file
+	 * @param minWeight
+	 * @throws IOException
+	 */
+	public void writeCsr(Path file, double minWeight) throws IOException {
+		checkOpen();
+		// only the edge arrays are needed from here on
+		keys = null;
+		slots = null;
+		timestamps = null;
+
+		int kept = 0;
+		boolean weighted = false;
+		for (int e = 0; e < edgeCount; e++) {
+			if (weights[e] < minWeight) {
+				continue;
+			}
+			from[kept] = from[e];
+			to[kept] = to[e];
+			weights[kept] = weights[e];
+			weighted |= weights[e] != 1;
+			kept++;
+		}
+		edgeCount = kept;
+
+		// renumber the vertices if some were left without edges
+		SymbolTable ids = symbols;
+		int[] vertices = new int[symbols.size()];
+		int vertexCount = 0;
+		for (int e = 0; e < edgeCount; e++) {
+			if (vertices[from[e]] == 0) {
+				vertices[from[e]] = 1;
+				vertexCount++;
+			}
+			if (vertices[to[e]] == 0) {
+				vertices[to[e]] = 1;
+				vertexCount++;
+			}
+		}
+		if (vertexCount < symbols.size()) {
+			ids = new SymbolTable(vertexCount);
+			for (int e = 0; e < edgeCount; e++) {
+				from[e] = getOrAddId(ids, vertices, from[e]);
+				to[e] = getOrAddId(ids, vertices, to[e]);
+			}
+		}
+
+		CsrGraph.write(ids, from, to, weighted ? weights : null, edgeCount, file);
+	}
+
+	private Vertex getOrAddVertex(MGraph graph, Vertex[] vertices, int id) {
+		if (vertices[id] == null) {
+			vertices[id] = graph.addVertex(symbols.get(id));
+		}
+		return vertices[id];
+	}
+
+	/**
+	 * Vertex number of the given symbol in the renumbered table. vertices[id]
+	 * is 1 for kept symbols that are not in the table yet and -(number + 1)
+	 * once they are
+	 */
+	private int getOrAddId(SymbolTable ids, int[] vertices, int id) {
+		if (vertices[id] > 0) {
+			vertices[id] = -(ids.intern(symbols.get(id)) + 1);
+		}
+		return -vertices[id] - 1;
+	}
+
+	private void checkOpen() {
+		if (keys == null) {
+			throw new IllegalStateException("edges were already written to a CSR graph file");
+		}
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldSlots = slots;
+		keys = new long[capacity];
+		slots = new int[capacity];
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldSlots.length; i++) {
+			if (oldSlots[i] != 0) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				slots[slot] = oldSlots[i];
+			}
+		}
+	}
+
+	private static int hash(long key) {
+		key *= 0x9e3779b97f4a7c15L;
+		return (int) (key ^ (key >>> 32));
+	}
+}
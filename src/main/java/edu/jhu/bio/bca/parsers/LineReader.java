@@ -0,0 +1,172 @@
+package edu.jhu.bio.bca.parsers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file line by line through a large NIO buffer. Lines are exposed as
+ * ranges of the buffer so that lines the caller is not interested in (e.g.
+ * message bodies) are skipped without creating strings
+ *
+ * The channel reads into a direct buffer, which is bulk copied into a byte
+ * array that is scanned for line breaks. Reading a file channel into a heap
+ * buffer would make the JDK copy through a temporary direct buffer anyway
+ *
+ * @author adeelq
+ *
+ */
+class LineReader implements Closeable {
+
+	private static final int DEFAULT_BUFFER_SIZE = 8 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer direct;
+	private byte[] bytes;
+	// end of the bytes read so far
+	private int limit;
+	private boolean eof;
+
+	// next unread byte
+	private int position;
+	private int lineStart;
+	private int lineEnd;
+
+	LineReader(Path file) throws IOException {
+		this(file, DEFAULT_BUFFER_SIZE);
+	}
+
+	LineReader(Path file, int bufferSize) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		direct = ByteBuffer.allocateDirect(bufferSize);
+		bytes = new byte[bufferSize];
+	}
+
+	/**
+	 * Advances to the next line
+	 *
+	 * @return false at the end of the file
+	 * @throws IOException
+	 */
+	boolean next() throws IOException {
+		int scan = position;
+		while (true) {
+			for (int i = scan; i < limit; i++) {
+				if (bytes[i] == '\n') {
+					setLine(position, i);
+					position = i + 1;
+					return true;
+				}
+			}
+			if (eof) {
+				if (position == limit) {
+					return false;
+				}
+				setLine(position, limit);
+				position = limit;
+				return true;
+			}
+			scan = limit - position;
+			fill();
+		}
+	}
+
+	/**
+	 * Current line without the line terminator
+	 *
+	 * @return
+	 */
+	String line() {
+		return substring(0);
+	}
+
+	/**
+	 * Current line starting at the given offset
+	 *
+	 * @param offset
+	 * @return
+	 */
+	String substring(int offset) {
+		return new String(bytes, lineStart + offset, length() - offset, StandardCharsets.UTF_8);
+	}
+
+	String substring(int offset, int end) {
+		return new String(bytes, lineStart + offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	int length() {
+		return lineEnd - lineStart;
+	}
+
+	byte byteAt(int i) {
+		return bytes[lineStart + i];
+	}
+
+	boolean startsWith(String prefix) {
+		if (prefix.length() > length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (bytes[lineStart + i] != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	boolean startsWithIgnoreCase(String prefix) {
+		if (prefix.length() > length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (Character.toLowerCase(bytes[lineStart + i]) != Character.toLowerCase(prefix.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void setLine(int start, int end) {
+		lineStart = start;
+		lineEnd = end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+	}
+
+	/**
+	 * Moves the unread bytes to the front of the buffer and reads more. The
+	 * buffer is grown if a single line does not fit
+	 *
+	 * @throws IOException
+	 */
+	private void fill() throws IOException {
+		limit -= position;
+		if (limit == bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		} else {
+			System.arraycopy(bytes, position, bytes, 0, limit);
+		}
+		position = 0;
+
+		while (limit < bytes.length) {
+			direct.clear();
+			direct.limit(Math.min(direct.capacity(), bytes.length - limit));
+			int read = channel.read(direct);
+			if (read < 0) {
+				eof = true;
+				break;
+			}
+			direct.flip();
+			direct.get(bytes, limit, read);
+			limit += read;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package edu.jhu.bio.bca.parsers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.model.SymbolTable;
+
+/**
+ * MboxGraphParser
+ *
+ * Builds the same sender/recipient graph as {@link EmailGraphParser} from mbox
+ * files. Only the From, To, Cc, Bcc and Date headers are decoded, message
+ * bodies are skipped without being converted to strings.
+ *
+ * @author adeelq
+ *
+ */
+@Service
+public class MboxGraphParser implements StreamingGraphParser {
+
+	private static final Logger log = LoggerFactory.getLogger(MboxGraphParser.class);
+
+	// headers of interest, lower case with the colon
+	private static final String[] HEADERS = { "from:", "to:", "cc:", "bcc:", "date:" };
+	private static final int FROM = 0;
+	private static final int TO = 1;
+	private static final int CC = 2;
+	private static final int BCC = 3;
+	private static final int DATE = 4;
+	private static final int[] RECIPIENTS = { TO, CC, BCC };
+
+	private Options opts = new Options();
+
+	private String suffix;
+	private double weightThreshold;
+
+	public MboxGraphParser() {
+		opts.addOption("mbox_parser_email_suffix", true,
+				"Only the email addresses ending with the given suffix will be processed e.g. enron.com");
+		opts.addOption("mbox_parser_edge_min_weight", true,
+				"All edges (and corresponding vertices) in the graph with weight less than the given weight are removed. default is 0");
+	}
+
+	@Override
+	public Options getOptions() {
+		return opts;
+	}
+
+	@Override
+	public void init(CommandLine cli) {
+		suffix = cli.getOptionValue("mbox_parser_email_suffix", "");
+		weightThreshold = Double.parseDouble(cli.getOptionValue("mbox_parser_edge_min_weight", "0"));
+	}
+
+	@Override
+	public double getMinEdgeWeight() {
+		return weightThreshold;
+	}
+
+	@Override
+	public MGraph parse(String path) {
+		GraphBuilder builder = new GraphBuilder();
+		try {
+			parse(path, builder);
+			System.out.println("Graph generated with " + builder.getVertexCount() + " vertices and "
+					+ builder.getEdgeCount() + " edges ");
+		} catch (IOException e) {
+			log.error("error in parsing input data", e);
+		}
+		return builder.toGraph(weightThreshold);
+	}
+
+	/**
+	 * Parses the given mbox file, or all files under the given directory
+	 */
+	@Override
+	public void parse(String path, EdgeSink sink) throws IOException {
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(Paths.get(path))) {
+			files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+
+		for (Path file : files) {
+			try (LineReader reader = new LineReader(file)) {
+				parseMbox(reader, sink);
+			}
+		}
+	}
+
+	private void parseMbox(LineReader reader, EdgeSink sink) throws IOException {
+		StringBuilder[] headers = newHeaders();
+		boolean inHeaders = false;
+		int header = -1;
+
+		while (reader.next()) {
+			// start of a new message
+			if (reader.startsWith("From ")) {
+				addMessage(headers, sink);
+				headers = newHeaders();
+				inHeaders = true;
+				header = -1;
+				continue;
+			}
+			if (!inHeaders) {
+				continue;
+			}
+
+			// blank line ends the headers
+			if (reader.length() == 0) {
+				inHeaders = false;
+				continue;
+			}
+
+			// folded header continues on the next line
+			byte first = reader.byteAt(0);
+			if (first == ' ' || first == '\t') {
+				if (header >= 0) {
+					headers[header].append(reader.line());
+				}
+				continue;
+			}
+
+			header = -1;
+			for (int i = 0; i < HEADERS.length; i++) {
+				if (reader.startsWithIgnoreCase(HEADERS[i])) {
+					header = i;
+					// repeated address headers extend the list, only the first
+					// date is used
+					if (headers[i].length() > 0) {
+						if (i == DATE) {
+							header = -1;
+							break;
+						}
+						headers[i].append(',');
+					}
+					headers[i].append(reader.substring(HEADERS[i].length()));
+					break;
+				}
+			}
+		}
+		addMessage(headers, sink);
+	}
+
+	/**
+	 * Sends an edge from the sender to each recipient of a message. TO
+	 * recipients get a weight of 1, CC and BCC recipients share a weight of 1
+	 *
+	 * @param headers
+	 * @param sink
+	 */
+	private void addMessage(StringBuilder[] headers, EdgeSink sink) {
+		if (headers[FROM].length() == 0) {
+			return;
+		}
+		long timestamp = parseDate(headers[DATE].toString());
+
+		for (String from : parseAddresses(headers[FROM])) {
+			// only interested in addresses with the given suffix
+			if (!StringUtils.isEmpty(suffix) && !from.endsWith(suffix)) {
+				continue;
+			}
+
+			// process all recipients
+			for (int type : RECIPIENTS) {
+				List<String> recipients = parseAddresses(headers[type]);
+				for (String to : recipients) {
+					if (StringUtils.isEmpty(suffix) || to.endsWith(suffix)) {
+						double weight = type == TO ? 1 : (double) 1 / recipients.size();
+						sink.edge(from, to, weight, timestamp);
+					}
+				}
+			}
+		}
+	}
+
+	private StringBuilder[] newHeaders() {
+		StringBuilder[] headers = new StringBuilder[HEADERS.length];
+		for (int i = 0; i < headers.length; i++) {
+			headers[i] = new StringBuilder();
+		}
+		return headers;
+	}
+
+	/**
+	 * Splits an address list header into normalized email addresses. Commas
+	 * inside quoted display names are not treated as separators
+	 *
+	 * @param header
+	 * @return
+	 */
+	static List<String> parseAddresses(CharSequence header) {
+		List<String> addresses = new ArrayList<>();
+		boolean quoted = false;
+		int start = 0;
+		for (int i = 0; i <= header.length(); i++) {
+			char c = i < header.length() ? header.charAt(i) : ',';
+			if (c == '"') {
+				quoted = !quoted;
+			} else if (c == ',' && !quoted) {
+				String address = toAddress(header.subSequence(start, i).toString());
+				if (address != null) {
+					addresses.add(address);
+				}
+				start = i + 1;
+			}
+		}
+		return addresses;
+	}
+
+	private static String toAddress(String mailbox) {
+		int open = mailbox.lastIndexOf('<');
+		int close = mailbox.lastIndexOf('>');
+		if (open >= 0 && close > open) {
+			mailbox = mailbox.substring(open + 1, close);
+		}
+		String address = SymbolTable.normalize(mailbox);
+		return address.indexOf('@') > 0 ? address : null;
+	}
+
+	private static long parseDate(String date) {
+		// drop trailing comments such as "(PST)"
+		int comment = date.indexOf('(');
+		if (comment >= 0) {
+			date = date.substring(0, comment);
+		}
+		try {
+			return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package edu.jhu.bio.bca.parsers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import edu.jhu.bio.bca.model.MGraph;
+
+/**
+ * Parser that streams the edges it reads into an {@link EdgeSink} instead of
+ * building a graph itself. The edges are aggregated by a {@link GraphBuilder}
+ * and the graph is created once at the end
+ * 
+ * @author adeelq
+ *
+ */
+public interface StreamingGraphParser extends GraphParser {
+
+	void parse(String path, EdgeSink sink) throws IOException;
+
+	/**
+	 * Edges whose aggregated weight is less than this are left out of the
+	 * graph, along with vertices left without edges. Default keeps all edges
+	 * 
+	 * @return
+	 */
+	default double getMinEdgeWeight() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	@Override
+	default MGraph parse(String path) {
+		GraphBuilder builder = new GraphBuilder();
+		try {
+			parse(path, builder);
+		} catch (IOException e) {
+			throw new UncheckedIOException("error in parsing input data " + path, e);
+		}
+		return builder.toGraph(getMinEdgeWeight());
+	}
+}
@@ -0,0 +1,76 @@
+package edu.jhu.bio.bca;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.cli.GnuParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.graph.BetweennessCentrality;
+import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.parsers.EdgeListGraphParser;
+import edu.jhu.bio.bca.parsers.MboxGraphParser;
+
+public class ApplicationTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testStreamingDiskEngine() throws Exception {
+		List<String> lines = new ArrayList<>();
+		message(lines, "alice@enron.com", "bob@enron.com", 3);
+		message(lines, "alice@enron.com", "carol@enron.com", 1);
+		message(lines, "bob@enron.com", "carol@enron.com", 2);
+		message(lines, "carol@enron.com", "dave@enron.com", 2);
+		File mbox = folder.newFile("mbox");
+		Files.write(mbox.toPath(), lines, StandardCharsets.UTF_8);
+		File csr = new File(folder.getRoot(), "graph.csr");
+		File output = new File(folder.getRoot(), "centralities.txt");
+
+		Application application = new Application();
+		application.parsers = Arrays.asList(new MboxGraphParser(), new EdgeListGraphParser());
+		String[] args = { "-input", mbox.getPath(), "-parser", "MboxGraphParser", "-mbox_parser_edge_min_weight",
+				"2", "-bc_engine", "disk", "-bc_csr_file", csr.getPath(), "-bc_output", output.getPath() };
+		application.run(args);
+
+		// the in memory engine on the thresholded graph, alice -> carol is left
+		// out so bob is on the path from alice to carol and dave
+		MboxGraphParser parser = new MboxGraphParser();
+		parser.init(new GnuParser().parse(parser.getOptions(), new String[] { "-mbox_parser_edge_min_weight", "2" }));
+		MGraph graph = parser.parse(mbox.getPath());
+		new BetweennessCentrality(graph).process();
+		assertEquals(2.0, (double) graph.getVertex("bob@enron.com").getProperty("cent"), 1e-9);
+
+		List<String> centralities = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+		assertEquals(4, centralities.size());
+		for (String line : centralities) {
+			String[] fields = line.split("\t");
+			Vertex vertex = graph.getVertex(fields[0]);
+			assertNotNull(fields[0], vertex);
+			assertEquals("centrality of " + fields[0], (double) vertex.getProperty("cent"),
+					Double.parseDouble(fields[1]), 1e-9);
+		}
+	}
+
+	private void message(List<String> lines, String from, String to, int count) {
+		for (int i = 0; i < count; i++) {
+			lines.add("From " + from + " Mon Jan  1 00:00:00 2001");
+			lines.add("From: " + from);
+			lines.add("To: " + to);
+			lines.add("");
+			lines.add("body");
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package edu.jhu.bio.bca.graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.model.CsrGraph;
+import edu.jhu.bio.bca.model.MGraph;
+
+/**
+ * All betweenness centrality implementations, so that the oracle and
+ * performance tests cover every engine. New engines should be added here
+ */
+public enum BetweennessCentralityEngines {
+
+	MEMORY(graph -> {
+		new BetweennessCentrality(graph).process();
+		return centralities(graph);
+	}),
+
+	DISK(graph -> {
+		try {
+			Path file = Files.createTempFile("bc", ".csr");
+			try {
+				CsrGraph.write(graph, file);
+				MGraph result = new MGraph();
+				for (Vertex v : graph.getVertices()) {
+					result.addVertex(v.getId());
+				}
+				try (CsrGraph csr = CsrGraph.open(file)) {
+					OutOfCoreBetweennessCentrality bc = new OutOfCoreBetweennessCentrality(csr);
+					bc.process();
+					bc.saveCentralities(result);
+				}
+				return centralities(result);
+			} finally {
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	});
+
+	private final Function<MGraph, Map<String, Double>> engine;
+
+	private BetweennessCentralityEngines(Function<MGraph, Map<String, Double>> engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Runs the engine on the given graph
+	 *
+	 * @param graph
+	 * @return centrality by vertex id
+	 */
+	public Map<String, Double> run(MGraph graph) {
+		return engine.apply(graph);
+	}
+
+	public static List<BetweennessCentralityEngines> all() {
+		return Arrays.asList(values());
+	}
+
+	private static Map<String, Double> centralities(MGraph graph) {
+		Map<String, Double> result = new HashMap<>();
+		for (Vertex v : graph.getVertices()) {
+			result.put(v.getId().toString(), v.getProperty("cent"));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,214 @@
+package edu.jhu.bio.bca.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.utils.GraphUtils;
+
+/**
+ * Checks every engine against graphs with known centralities and against the
+ * brute force {@link ReferenceBetweennessCentrality} on random graphs.
+ * Centralities count ordered (s, t) pairs, so on undirected graphs they are
+ * twice the textbook values
+ */
+public class BetweennessCentralityOracleTests {
+
+	private static final String GRAPH_FILE = BetweennessCentralityTests.BASE_DIRECTORY + "/simple.graphml";
+
+	@Test
+	public void testSimpleGraph() {
+		// 5 is on every path from 6, 7 and 8 to 1, 2, 3 and 4. 2, 3 and 4
+		// each carry a third of the paths into 1, and 6 and 7 each carry half
+		// of the paths leaving 8
+		Map<String, Double> expected = new HashMap<>();
+		expected.put("1", 0.0);
+		expected.put("2", 4.0 / 3);
+		expected.put("3", 4.0 / 3);
+		expected.put("4", 4.0 / 3);
+		expected.put("5", 12.0);
+		expected.put("6", 2.5);
+		expected.put("7", 2.5);
+		expected.put("8", 0.0);
+		expected.put("9", 0.0);
+
+		assertKnownAnswer(expected, () -> GraphUtils.readGraph(GRAPH_FILE));
+	}
+
+	@Test
+	public void testPath() {
+		// vertex i separates the i vertices before it from the n - 1 - i after
+		int n = 7;
+		Map<String, Double> expected = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			expected.put(String.valueOf(i), 2.0 * i * (n - 1 - i));
+		}
+		assertKnownAnswer(expected, () -> TestGraphs.path(n));
+	}
+
+	@Test
+	public void testStar() {
+		// the center is on the only path between every pair of leaves
+		int leaves = 6;
+		Map<String, Double> expected = new HashMap<>();
+		expected.put("0", (double) leaves * (leaves - 1));
+		for (int i = 1; i <= leaves; i++) {
+			expected.put(String.valueOf(i), 0.0);
+		}
+		assertKnownAnswer(expected, () -> TestGraphs.star(leaves));
+	}
+
+	@Test
+	public void testGrid() {
+		// 3 x 3 grid. A corner carries half of the paths between its two
+		// neighbors, a third of the paths from each neighbor to the far
+		// corners of its sides and a sixth of the paths between those corners
+		double corner = 2 * (1.0 / 2 + 1.0 / 3 + 1.0 / 3 + 1.0 / 6);
+		Map<String, Double> expected = new HashMap<>();
+		for (String v : new String[] { "0", "2", "6", "8" }) {
+			expected.put(v, corner);
+		}
+		for (String v : new String[] { "1", "3", "5", "7" }) {
+			expected.put(v, 10.0);
+		}
+		expected.put("4", 64.0 / 3);
+		assertKnownAnswer(expected, () -> TestGraphs.grid(3, 3));
+	}
+
+	@Test
+	public void testWeightedShortcut() {
+		// the direct edge 0 - 2 is longer than the path through 1
+		Map<String, Double> expected = new HashMap<>();
+		expected.put("0", 0.0);
+		expected.put("1", 2.0);
+		expected.put("2", 0.0);
+		assertKnownAnswer(expected, () -> {
+			MGraph graph = TestGraphs.vertices(3);
+			TestGraphs.undirected(graph, 0, 1, 1);
+			TestGraphs.undirected(graph, 1, 2, 1);
+			TestGraphs.undirected(graph, 0, 2, 3);
+			return graph;
+		});
+	}
+
+	@Test
+	public void testDisconnected() {
+		// two paths of three vertices, no paths between them
+		Map<String, Double> expected = new HashMap<>();
+		for (int i = 0; i < 6; i++) {
+			expected.put(String.valueOf(i), i % 3 == 1 ? 2.0 : 0.0);
+		}
+		assertKnownAnswer(expected, () -> {
+			MGraph graph = TestGraphs.vertices(6);
+			TestGraphs.undirected(graph, 0, 1, 0);
+			TestGraphs.undirected(graph, 1, 2, 0);
+			TestGraphs.undirected(graph, 3, 4, 0);
+			TestGraphs.undirected(graph, 4, 5, 0);
+			return graph;
+		});
+	}
+
+	@Test
+	public void testParallelEdges() {
+		// both edges 0 -> 1 are shortest paths from 0 to 2 and both go through 1
+		Map<String, Double> expected = new HashMap<>();
+		expected.put("0", 0.0);
+		expected.put("1", 1.0);
+		expected.put("2", 0.0);
+		assertKnownAnswer(expected, () -> {
+			MGraph graph = TestGraphs.vertices(3);
+			TestGraphs.edge(graph, 0, 1, 0);
+			TestGraphs.edge(graph, 0, 1, 0);
+			TestGraphs.edge(graph, 1, 2, 0);
+			return graph;
+		});
+	}
+
+	@Test
+	public void testWeightedParallelEdges() {
+		// three shortest paths from 0 to 3: two through 1 over the parallel
+		// edges of weight 1 and one through 2. The edge 0 -> 1 of weight 2 is
+		// not on a shortest path
+		Map<String, Double> expected = new HashMap<>();
+		expected.put("0", 0.0);
+		expected.put("1", 2.0 / 3);
+		expected.put("2", 1.0 / 3);
+		expected.put("3", 0.0);
+		assertKnownAnswer(expected, () -> {
+			MGraph graph = TestGraphs.vertices(4);
+			TestGraphs.edge(graph, 0, 1, 1);
+			TestGraphs.edge(graph, 0, 1, 1);
+			TestGraphs.edge(graph, 0, 1, 2);
+			TestGraphs.edge(graph, 1, 3, 1);
+			TestGraphs.edge(graph, 0, 2, 1);
+			TestGraphs.edge(graph, 2, 3, 1);
+			return graph;
+		});
+	}
+
+	@Test
+	public void testRandomMultigraphs() {
+		Random random = new Random(20160105);
+		for (int i = 0; i < 20; i++) {
+			int n = 2 + random.nextInt(20);
+			int edges = random.nextInt(n * (n - 1) + 1);
+			int maxWeight = i % 2 == 0 ? 0 : 1 + random.nextInt(3);
+			long seed = random.nextLong();
+
+			String name = "random multigraph " + i + " (" + n + " vertices, " + edges + " edges, max weight "
+					+ maxWeight + ")";
+			Map<String, Double> expected = ReferenceBetweennessCentrality
+					.compute(TestGraphs.multigraph(new Random(seed), n, edges, maxWeight));
+			for (BetweennessCentralityEngines engine : BetweennessCentralityEngines.all()) {
+				Map<String, Double> actual = engine.run(TestGraphs.multigraph(new Random(seed), n, edges,
+						maxWeight));
+				assertCentralities(engine + " on " + name, expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testRandomGraphs() {
+		Random random = new Random(20151201);
+		for (int i = 0; i < 40; i++) {
+			int n = 2 + random.nextInt(30);
+			int edges = random.nextInt(n * (n - 1) / 2 + 1);
+			int maxWeight = i % 2 == 0 ? 0 : 1 + random.nextInt(4);
+			long seed = random.nextLong();
+
+			String name = "random graph " + i + " (" + n + " vertices, " + edges + " edges, max weight "
+					+ maxWeight + ")";
+			Map<String, Double> expected = ReferenceBetweennessCentrality
+					.compute(TestGraphs.random(new Random(seed), n, edges, maxWeight));
+			for (BetweennessCentralityEngines engine : BetweennessCentralityEngines.all()) {
+				Map<String, Double> actual = engine
+						.run(TestGraphs.random(new Random(seed), n, edges, maxWeight));
+				assertCentralities(engine + " on " + name, expected, actual);
+			}
+		}
+	}
+
+	private void assertKnownAnswer(Map<String, Double> expected, GraphFactory graph) {
+		assertCentralities("reference", expected, ReferenceBetweennessCentrality.compute(graph.create()));
+		for (BetweennessCentralityEngines engine : BetweennessCentralityEngines.all()) {
+			assertCentralities(engine.toString(), expected, engine.run(graph.create()));
+		}
+	}
+
+	private void assertCentralities(String message, Map<String, Double> expected, Map<String, Double> actual) {
+		assertEquals(message + ": vertices", expected.keySet(), actual.keySet());
+		for (Map.Entry<String, Double> e : expected.entrySet()) {
+			double tolerance = 1e-9 * Math.max(1, Math.abs(e.getValue()));
+			assertEquals(message + ": centrality of " + e.getKey(), e.getValue(), actual.get(e.getKey()), tolerance);
+		}
+	}
+
+	private interface GraphFactory {
+		MGraph create();
+	}
+}
@@ -0,0 +1,104 @@
+package edu.jhu.bio.bca.graph;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.jhu.bio.bca.model.MGraph;
+
+/**
+ * Fails when an engine gets much slower or allocates much more than the
+ * ceilings recorded in bc-ceilings.properties. The ceilings are a few times
+ * the recorded values so that only large regressions fail the build, e.g. going
+ * back to per source allocation. They can be scaled for slow machines with
+ * -Dbc.ceiling.factor
+ */
+public class BetweennessCentralityPerformanceTests {
+
+	private static final String CEILINGS = "/bc-ceilings.properties";
+	private static final int RUNS = 3;
+
+	private static Properties ceilings = new Properties();
+	private static double factor;
+
+	@BeforeClass
+	public static void loadCeilings() throws IOException {
+		try (InputStream in = BetweennessCentralityPerformanceTests.class.getResourceAsStream(CEILINGS)) {
+			assertNotNull("missing " + CEILINGS, in);
+			ceilings.load(in);
+		}
+		factor = Double.parseDouble(System.getProperty("bc.ceiling.factor", "1"));
+	}
+
+	@Test
+	public void testSmallGraph() {
+		assertWithinCeilings("random-250", () -> TestGraphs.random(new Random(1), 250, 1250, 0));
+	}
+
+	@Test
+	public void testMediumGraph() {
+		assertWithinCeilings("random-1000", () -> TestGraphs.random(new Random(2), 1000, 5000, 0));
+	}
+
+	@Test
+	public void testWeightedGraph() {
+		assertWithinCeilings("weighted-1000", () -> TestGraphs.random(new Random(3), 1000, 5000, 5));
+	}
+
+	private void assertWithinCeilings(String graphName, Supplier<MGraph> graph) {
+		com.sun.management.ThreadMXBean threads = threadBean();
+		assumeTrue("thread allocation counters are not available", threads != null);
+
+		for (BetweennessCentralityEngines engine : BetweennessCentralityEngines.all()) {
+			String key = engine.name().toLowerCase() + "." + graphName;
+
+			// warm up
+			engine.run(graph.get());
+
+			long bestMillis = Long.MAX_VALUE;
+			long bestBytes = Long.MAX_VALUE;
+			for (int i = 0; i < RUNS; i++) {
+				MGraph g = graph.get();
+				long thread = Thread.currentThread().getId();
+				long bytes = threads.getThreadAllocatedBytes(thread);
+				long start = System.nanoTime();
+				engine.run(g);
+				bestMillis = Math.min(bestMillis, (System.nanoTime() - start) / 1000000);
+				bestBytes = Math.min(bestBytes, threads.getThreadAllocatedBytes(thread) - bytes);
+			}
+			System.out.println(key + ": " + bestMillis + " ms, " + bestBytes + " bytes allocated");
+
+			assertCeiling(key + ".millis", bestMillis);
+			assertCeiling(key + ".bytes", bestBytes);
+		}
+	}
+
+	private void assertCeiling(String key, long measured) {
+		String value = ceilings.getProperty(key);
+		assertNotNull("no ceiling recorded for " + key + ", measured " + measured, value);
+		long ceiling = (long) (Long.parseLong(value) * factor);
+		assertTrue(key + " regressed: measured " + measured + ", ceiling " + ceiling, measured <= ceiling);
+	}
+
+	private static com.sun.management.ThreadMXBean threadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported()) {
+				threads.setThreadAllocatedMemoryEnabled(true);
+				return threads;
+			}
+		}
+		return null;
+	}
+}
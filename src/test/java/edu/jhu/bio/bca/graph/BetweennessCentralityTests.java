@@ -1,5 +1,7 @@
 package edu.jhu.bio.bca.graph;
 
+import static org.junit.Assert.assertEquals;
+
 import org.junit.Test;
 
 import com.tinkerpop.blueprints.Direction;
@@ -24,6 +26,34 @@ public class BetweennessCentralityTests {
 
 		bc = new BetweennessCentrality(graph);
 		bc.process();
+
+		// see BetweennessCentralityOracleTests for the derivation
+		assertEquals(0.0, getCentrality("1"), 1e-9);
+		assertEquals(4.0 / 3, getCentrality("2"), 1e-9);
+		assertEquals(12.0, getCentrality("5"), 1e-9);
+		assertEquals(2.5, getCentrality("6"), 1e-9);
+		assertEquals(0.0, getCentrality("8"), 1e-9);
+	}
+
+	@Test
+	public void testNumericWeights() {
+		// a -> b -> c costs 2 + 1, the direct edge costs 5
+		graph = new MGraph();
+		Vertex a = graph.addVertex("a");
+		Vertex b = graph.addVertex("b");
+		Vertex c = graph.addVertex("c");
+		graph.addEdge(null, a, b, "").setProperty("weight", 2);
+		graph.addEdge(null, b, c, "").setProperty("weight", 1f);
+		graph.addEdge(null, a, c, "").setProperty("weight", 5L);
+
+		bc = new BetweennessCentrality(graph);
+		bc.process();
+
+		assertEquals(1.0, getCentrality("b"), 1e-9);
+	}
+
+	private double getCentrality(String id) {
+		return graph.getVertex(id).getProperty("cent");
 	}
 
 	@Test
@@ -0,0 +1,135 @@
+package edu.jhu.bio.bca.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.model.CsrGraph;
+import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.utils.GraphUtils;
+
+public class OutOfCoreBetweennessCentralityTests {
+
+	private static final String GRAPH_FILE = BetweennessCentralityTests.BASE_DIRECTORY + "/simple.graphml";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSimpleGraph() throws IOException {
+		assertSameAsInMemory(GraphUtils.readGraph(GRAPH_FILE));
+	}
+
+	@Test
+	public void testRandomGraphs() throws IOException {
+		Random random = new Random(42);
+		for (int i = 0; i < 5; i++) {
+			assertSameAsInMemory(randomGraph(random, 40, 120, i % 2 == 0));
+		}
+	}
+
+	@Test
+	public void testSaveCentralitiesToFile() throws IOException {
+		MGraph graph = GraphUtils.readGraph(GRAPH_FILE);
+		File file = folder.newFile();
+		File output = folder.newFile();
+		CsrGraph.write(graph, file.toPath());
+		try (CsrGraph csr = CsrGraph.open(file.toPath())) {
+			OutOfCoreBetweennessCentrality bc = new OutOfCoreBetweennessCentrality(csr);
+			bc.process();
+			bc.saveCentralities(output.toPath());
+		}
+
+		new BetweennessCentrality(graph).process();
+		List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+		assertEquals(count(graph.getVertices()), lines.size());
+		for (String line : lines) {
+			String[] fields = line.split("\t");
+			double expected = graph.getVertex(fields[0]).getProperty("cent");
+			assertEquals("centrality of " + fields[0], expected, Double.parseDouble(fields[1]), 1e-9);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testHeapBudget() throws IOException {
+		File file = folder.newFile();
+		CsrGraph.write(GraphUtils.readGraph(GRAPH_FILE), file.toPath());
+		try (CsrGraph csr = CsrGraph.open(file.toPath())) {
+			new OutOfCoreBetweennessCentrality(csr, OutOfCoreBetweennessCentrality.requiredHeap(csr) - 1);
+		}
+	}
+
+	private void assertSameAsInMemory(MGraph graph) throws IOException {
+		File file = folder.newFile();
+		CsrGraph.write(graph, file.toPath());
+
+		MGraph disk = new MGraph();
+		for (Vertex v : graph.getVertices()) {
+			disk.addVertex(v.getId());
+		}
+		try (CsrGraph csr = CsrGraph.open(file.toPath())) {
+			OutOfCoreBetweennessCentrality bc = new OutOfCoreBetweennessCentrality(csr);
+			bc.process();
+			bc.saveCentralities(disk);
+		}
+
+		new BetweennessCentrality(graph).process();
+		for (Vertex v : graph.getVertices()) {
+			double expected = v.getProperty("cent");
+			double actual = disk.getVertex(v.getId()).getProperty("cent");
+			assertEquals("centrality of " + v.getId(), expected, actual, 1e-9);
+		}
+	}
+
+	private MGraph randomGraph(Random random, int vertices, int edges, boolean weighted) {
+		MGraph graph = new MGraph();
+		for (int i = 0; i < vertices; i++) {
+			graph.addVertex(String.valueOf(i));
+		}
+		int added = 0;
+		while (added < edges) {
+			Vertex from = graph.getVertex(String.valueOf(random.nextInt(vertices)));
+			Vertex to = graph.getVertex(String.valueOf(random.nextInt(vertices)));
+			if (from == to || contains(from, to)) {
+				continue;
+			}
+			Edge edge = graph.addEdge("e" + added, from, to, "e");
+			if (weighted) {
+				edge.setProperty("weight", (double) (1 + random.nextInt(3)));
+			}
+			added++;
+		}
+		return graph;
+	}
+
+	private boolean contains(Vertex from, Vertex to) {
+		for (Vertex v : from.getVertices(Direction.OUT)) {
+			if (v == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unused")
+	private <T> int count(Iterable<T> recs) {
+		int count = 0;
+		for (T rec : recs) {
+			count++;
+		}
+		return count;
+	}
+}
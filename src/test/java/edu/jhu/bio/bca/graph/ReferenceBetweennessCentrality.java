@@ -0,0 +1,118 @@
+package edu.jhu.bio.bca.graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.model.MGraph;
+
+/**
+ * Brute force betweenness centrality used as the oracle for the engines. It
+ * follows the definition directly: all pairs distances with Floyd-Warshall,
+ * shortest path counts from the distances, and then for every pair (s, t) the
+ * fraction of shortest paths through each v. Edges are followed in their own
+ * direction, unlike the engines, which also checks that the result does not
+ * depend on the traversal direction. Each of several parallel edges of the
+ * same shortest length is a separate shortest path
+ */
+public class ReferenceBetweennessCentrality {
+
+	/**
+	 * @param graph
+	 * @return centrality by vertex id
+	 */
+	public static Map<String, Double> compute(MGraph graph) {
+		Map<Vertex, Integer> index = new HashMap<>();
+		for (Vertex v : graph.getVertices()) {
+			index.put(v, index.size());
+		}
+		int n = index.size();
+
+		// weight[i][j] is the lightest edge from i to j and multiplicity[i][j]
+		// the number of edges from i to j with that weight
+		double[][] weight = new double[n][n];
+		int[][] multiplicity = new int[n][n];
+		for (double[] row : weight) {
+			Arrays.fill(row, Double.POSITIVE_INFINITY);
+		}
+		for (Edge e : graph.getEdges()) {
+			int i = index.get(e.getVertex(Direction.OUT));
+			int j = index.get(e.getVertex(Direction.IN));
+			if (i == j) {
+				continue;
+			}
+			Object property = e.getProperty("weight");
+			double w = property != null ? ((Number) property).doubleValue() : 1;
+			if (w < weight[i][j]) {
+				weight[i][j] = w;
+				multiplicity[i][j] = 1;
+			} else if (w == weight[i][j]) {
+				multiplicity[i][j]++;
+			}
+		}
+
+		double[][] dist = new double[n][];
+		for (int i = 0; i < n; i++) {
+			dist[i] = weight[i].clone();
+			dist[i][i] = 0;
+		}
+		for (int k = 0; k < n; k++) {
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					if (dist[i][k] + dist[k][j] < dist[i][j]) {
+						dist[i][j] = dist[i][k] + dist[k][j];
+					}
+				}
+			}
+		}
+
+		// sigma[s][v] = sum of sigma[s][u] over edges u -> v on a shortest path,
+		// counting each parallel edge, computed in order of increasing distance
+		// from s
+		double[][] sigma = new double[n][n];
+		Integer[] order = new Integer[n];
+		for (int s = 0; s < n; s++) {
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			final double[] d = dist[s];
+			Arrays.sort(order, (a, b) -> Double.compare(d[a], d[b]));
+
+			sigma[s][s] = 1;
+			for (int v : order) {
+				if (v == s || d[v] == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				for (int u = 0; u < n; u++) {
+					if (d[u] + weight[u][v] == d[v]) {
+						sigma[s][v] += sigma[s][u] * multiplicity[u][v];
+					}
+				}
+			}
+		}
+
+		double[] centrality = new double[n];
+		for (int s = 0; s < n; s++) {
+			for (int t = 0; t < n; t++) {
+				if (s == t || dist[s][t] == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				for (int v = 0; v < n; v++) {
+					if (v != s && v != t && dist[s][v] + dist[v][t] == dist[s][t]) {
+						centrality[v] += sigma[s][v] * sigma[v][t] / sigma[s][t];
+					}
+				}
+			}
+		}
+
+		Map<String, Double> result = new HashMap<>();
+		for (Map.Entry<Vertex, Integer> e : index.entrySet()) {
+			result.put(e.getKey().getId().toString(), centrality[e.getValue()]);
+		}
+		return result;
+	}
+}
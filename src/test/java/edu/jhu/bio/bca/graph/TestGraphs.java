@@ -0,0 +1,122 @@
+package edu.jhu.bio.bca.graph;
+
+import java.util.Random;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.model.MGraph;
+
+/**
+ * Generators for the graphs used to test the betweenness centrality engines.
+ * Vertex ids are "0" to "n - 1"
+ */
+public class TestGraphs {
+
+	/**
+	 * Undirected path 0 - 1 - ... - (n - 1)
+	 */
+	public static MGraph path(int n) {
+		MGraph graph = vertices(n);
+		for (int i = 0; i + 1 < n; i++) {
+			undirected(graph, i, i + 1, 0);
+		}
+		return graph;
+	}
+
+	/**
+	 * Undirected star with center 0 and the given number of leaves
+	 */
+	public static MGraph star(int leaves) {
+		MGraph graph = vertices(leaves + 1);
+		for (int i = 1; i <= leaves; i++) {
+			undirected(graph, 0, i, 0);
+		}
+		return graph;
+	}
+
+	/**
+	 * Undirected rows x columns grid, vertex (r, c) has id r * columns + c
+	 */
+	public static MGraph grid(int rows, int columns) {
+		MGraph graph = vertices(rows * columns);
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c++) {
+				int v = r * columns + c;
+				if (c + 1 < columns) {
+					undirected(graph, v, v + 1, 0);
+				}
+				if (r + 1 < rows) {
+					undirected(graph, v, v + columns, 0);
+				}
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Random directed graph without self loops or parallel edges. Weighted
+	 * graphs get integer weights from 1 to maxWeight so that equal length paths
+	 * compare equal
+	 */
+	public static MGraph random(Random random, int n, int edges, int maxWeight) {
+		MGraph graph = vertices(n);
+		boolean[] used = new boolean[n * n];
+		int added = 0;
+		while (added < Math.min(edges, n * (n - 1))) {
+			int from = random.nextInt(n);
+			int to = random.nextInt(n);
+			if (from == to || used[from * n + to]) {
+				continue;
+			}
+			used[from * n + to] = true;
+			edge(graph, from, to, maxWeight > 0 ? 1 + random.nextInt(maxWeight) : 0);
+			added++;
+		}
+		return graph;
+	}
+
+	/**
+	 * Random directed graph without self loops where the same pair of vertices
+	 * can be connected by several edges, possibly of different weights
+	 */
+	public static MGraph multigraph(Random random, int n, int edges, int maxWeight) {
+		MGraph graph = vertices(n);
+		int added = 0;
+		while (added < edges) {
+			int from = random.nextInt(n);
+			int to = random.nextInt(n);
+			if (from == to) {
+				continue;
+			}
+			edge(graph, from, to, maxWeight > 0 ? 1 + random.nextInt(maxWeight) : 0);
+			added++;
+		}
+		return graph;
+	}
+
+	public static MGraph vertices(int n) {
+		MGraph graph = new MGraph();
+		for (int i = 0; i < n; i++) {
+			graph.addVertex(String.valueOf(i));
+		}
+		return graph;
+	}
+
+	public static void undirected(MGraph graph, int a, int b, double weight) {
+		edge(graph, a, b, weight);
+		edge(graph, b, a, weight);
+	}
+
+	/**
+	 * Adds an edge, a weight of 0 leaves the edge unweighted
+	 */
+	public static void edge(MGraph graph, int from, int to, double weight) {
+		Vertex f = graph.getVertex(String.valueOf(from));
+		Vertex t = graph.getVertex(String.valueOf(to));
+		Edge e = graph.addEdge(null, f, t, "e");
+		if (weight > 0) {
+			e.setProperty("weight", weight);
+		}
+	}
+}
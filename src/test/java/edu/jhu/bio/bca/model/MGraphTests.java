@@ -0,0 +1,301 @@
+package edu.jhu.bio.bca.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cern.colt.matrix.DoubleMatrix1D;
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.impl.DenseDoubleMatrix2D;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.utils.GraphUtils;
+
+public class MGraphTests {
+
+	private static final String GRAPH_FILE = "src/test/resources/simple.graphml";
+
+	@Test
+	public void testAdjacencyFollowsUpdates() {
+		MGraph graph = GraphUtils.readGraph(GRAPH_FILE);
+
+		int v2 = graph.getMatrixElementForVertexID("2");
+		int v1 = graph.getMatrixElementForVertexID("1");
+		int v5 = graph.getMatrixElementForVertexID("5");
+		assertEquals(1.0, graph.getAdjacency().get(v2, v1), 0);
+		assertEquals(1.0, graph.getAdjacency().get(v1, v2), 0);
+		assertEquals(1.0, graph.getDirectedAdjacency().get(v2, v1), 0);
+		assertEquals(0.0, graph.getDirectedAdjacency().get(v1, v2), 0);
+
+		// removing a vertex removes all its rows and columns
+		graph.removeVertex(graph.getVertex("2"));
+		assertEquals(-1, graph.getMatrixElementForVertexID("2"));
+		assertEquals(8, graph.getAdjacency().rows());
+		assertEquals(16.0, graph.getAdjacency().zSum(), 0);
+		v1 = graph.getMatrixElementForVertexID("1");
+		v5 = graph.getMatrixElementForVertexID("5");
+		assertEquals("5", graph.getVertexIDForMatrixElement(v5));
+		assertEquals(0.0, graph.getAdjacency().get(v5, v1), 0);
+
+		// new vertices grow the matrices
+		Vertex v = graph.addVertex("10");
+		Edge e = graph.addEdge("e20", v, graph.getVertex("1"), "");
+		int v10 = graph.getMatrixElementForVertexID("10");
+		assertEquals(1.0, graph.getAdjacency().get(v1, v10), 0);
+		assertEquals(1.0, graph.getWeightedAdjacency().get(v10, v1), 0);
+
+		graph.setEdgeWeight(e, 2.5);
+		assertEquals(2.5, graph.getWeightedAdjacency().get(v10, v1), 0);
+
+		graph.removeEdge(e);
+		assertEquals(0.0, graph.getAdjacency().get(v1, v10), 0);
+		assertEquals(0.0, graph.getWeightedAdjacency().get(v10, v1), 0);
+	}
+
+	@Test
+	public void testSnapshotIsNotAffectedByUpdates() {
+		MGraph graph = GraphUtils.readGraph(GRAPH_FILE);
+
+		AdjacencySnapshot snapshot = graph.snapshot();
+		int v2 = graph.getMatrixElementForVertexID("2");
+		int v1 = graph.getMatrixElementForVertexID("1");
+
+		graph.removeVertex(graph.getVertex("2"));
+		graph.addEdge("e20", graph.addVertex("10"), graph.getVertex("1"), "");
+
+		assertEquals("2", snapshot.getVertexIDForMatrixElement(v2));
+		assertEquals("1", snapshot.getVertexIDForMatrixElement(v1));
+		assertEquals(9, snapshot.size());
+		assertEquals(1.0, snapshot.getAdjacency().get(v2, v1), 0);
+		assertEquals(-1, graph.getMatrixElementForVertexID("2"));
+	}
+
+	@Test
+	public void testMatricesAreReadOnly() {
+		MGraph graph = GraphUtils.readGraph(GRAPH_FILE);
+		AdjacencySnapshot snapshot = graph.snapshot();
+
+		for (DoubleMatrix2D matrix : new DoubleMatrix2D[] { snapshot.getAdjacency(), snapshot.getDirectedAdjacency(),
+				snapshot.getWeightedAdjacency(), graph.getAdjacency() }) {
+			assertWriteFails(() -> matrix.set(0, 1, 5));
+			assertWriteFails(() -> matrix.viewRow(0).set(1, 5));
+			assertWriteFails(() -> matrix.viewDice().assign(5));
+			assertWriteFails(() -> matrix.forEachNonZero((i, j, value) -> 5));
+
+			DoubleMatrix2D copy = matrix.copy();
+			copy.set(0, 1, 5);
+			assertEquals(5.0, copy.get(0, 1), 0);
+			assertEquals(matrix.zSum() + 5 - matrix.get(0, 1), copy.zSum(), 0);
+		}
+	}
+
+	@Test
+	public void testSparseOperations() {
+		MGraph graph = GraphUtils.readGraph(GRAPH_FILE);
+		graph.removeVertex(graph.getVertex("3"));
+		DoubleMatrix2D matrix = graph.getWeightedAdjacency();
+		DoubleMatrix2D copy = matrix.copy();
+		int n = matrix.rows();
+
+		assertEquals(copy.cardinality(), matrix.cardinality());
+		assertEquals(copy.zSum(), matrix.zSum(), 0);
+
+		DoubleMatrix1D y = new DenseDoubleMatrix1D(n);
+		DoubleMatrix2D b = new DenseDoubleMatrix2D(n, 3);
+		for (int i = 0; i < n; i++) {
+			y.setQuick(i, i + 1);
+			for (int k = 0; k < 3; k++) {
+				b.setQuick(i, k, i * 3 + k);
+			}
+		}
+		for (boolean transpose : new boolean[] { false, true }) {
+			DoubleMatrix1D z = new DenseDoubleMatrix1D(n).assign(1);
+			assertEquals(copy.zMult(y, z.copy(), 2, 0.5, transpose), matrix.zMult(y, z.copy(), 2, 0.5, transpose));
+			assertEquals(copy.zMult(b, null, 1, 0, transpose, false), matrix.zMult(b, null, 1, 0, transpose, false));
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void testLargeSparseMultiply() {
+		// 20000 x 20000 matrices must not be walked element by element
+		MGraph graph = new MGraph();
+		int n = 20000;
+		for (int i = 0; i < n; i++) {
+			graph.addVertex(Integer.toString(i));
+		}
+		Random random = new Random(27);
+		for (int i = 0; i < 3 * n; i++) {
+			graph.addEdge(null, graph.getVertex(Integer.toString(random.nextInt(n))),
+					graph.getVertex(Integer.toString(random.nextInt(n))), "");
+		}
+
+		DoubleMatrix2D adjacency = graph.getAdjacency();
+		DoubleMatrix1D y = new DenseDoubleMatrix1D(n).assign(1);
+		DoubleMatrix1D degrees = adjacency.zMult(y, null);
+		assertEquals(adjacency.zSum(), degrees.zSum(), 0);
+		assertEquals(adjacency.cardinality(), (int) degrees.zSum());
+	}
+
+	@Test
+	public void testSharedSymbolTable() {
+		SymbolTable symbols = new SymbolTable();
+		symbols.intern("a");
+		MGraph graph = new MGraph(symbols);
+		graph.addEdge(null, graph.addVertex("b"), graph.addVertex("a"), "");
+
+		// nothing is interned until the matrices are needed
+		assertEquals(1, symbols.size());
+		DoubleMatrix2D directed = graph.getDirectedAdjacency();
+		assertEquals(2, symbols.size());
+		assertEquals(1.0, directed.get(graph.getMatrixElementForVertexID("b"), graph.getMatrixElementForVertexID("a")),
+				0);
+
+		// ids already in the table are not interned again
+		graph.removeVertex(graph.getVertex("a"));
+		graph.addVertex("a");
+		assertEquals(2, symbols.size());
+		assertEquals("a", graph.getVertexIDForMatrixElement(graph.getMatrixElementForVertexID("a")));
+	}
+
+	@Test
+	public void testMatrixLimit() {
+		MGraph graph = new MGraph();
+		for (int i = 0; i < MGraph.MAX_DIMENSION; i++) {
+			graph.addVertex(Integer.toString(i));
+		}
+		graph.addEdge(null, graph.getVertex("1"), graph.getVertex("2"), "");
+		assertEquals(MGraph.MAX_DIMENSION, graph.getAdjacency().rows());
+
+		// one more vertex drops the matrices instead of failing
+		graph.addVertex("x");
+		assertEquals(MGraph.MAX_DIMENSION + 1, count(graph.getVertices()));
+		try {
+			graph.getAdjacency();
+			fail("matrices beyond the limit were built");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		graph.removeVertex(graph.getVertex("0"));
+		DoubleMatrix2D adjacency = graph.getAdjacency();
+		assertEquals(MGraph.MAX_DIMENSION, adjacency.rows());
+		assertEquals(1.0, adjacency.get(graph.getMatrixElementForVertexID("1"), graph.getMatrixElementForVertexID("2")),
+				0);
+	}
+
+	@Test
+	public void testRemovedVerticesDoNotKeepRows() {
+		MGraph graph = new MGraph();
+		int count = 50000;
+		for (int i = 0; i < count; i++) {
+			graph.addVertex(Integer.toString(i));
+		}
+		for (int i = 100; i < count; i++) {
+			graph.removeVertex(graph.getVertex(Integer.toString(i)));
+		}
+		graph.addEdge(null, graph.getVertex("7"), graph.getVertex("42"), "");
+
+		assertEquals(100, graph.getAdjacency().rows());
+		int v7 = graph.getMatrixElementForVertexID("7");
+		int v42 = graph.getMatrixElementForVertexID("42");
+		assertEquals(1.0, graph.getDirectedAdjacency().get(v7, v42), 0);
+
+		// removing tracked vertices moves the last vertex into the free index
+		graph.removeVertex(graph.getVertex("0"));
+		graph.removeVertex(graph.getVertex("7"));
+		assertEquals(98, graph.getAdjacency().rows());
+		assertEquals(0.0, graph.getAdjacency().zSum(), 0);
+		for (int i = 0; i < 98; i++) {
+			String id = graph.getVertexIDForMatrixElement(i);
+			assertEquals(i, graph.getMatrixElementForVertexID(id));
+		}
+	}
+
+	@Test
+	public void testIncrementalMatchesRebuild() {
+		MGraph graph = GraphUtils.readGraph(GRAPH_FILE);
+		graph.getAdjacency();
+
+		graph.removeEdge(graph.getEdge("e5"));
+		graph.removeVertex(graph.getVertex("8"));
+		graph.addEdge("e20", graph.getVertex("7"), graph.getVertex("1"), "");
+		graph.addEdge("e21", graph.getVertex("7"), graph.getVertex("1"), "");
+		graph.removeVertex(graph.getVertex("1"));
+		graph.addEdge("e22", graph.addVertex("10"), graph.getVertex("7"), "");
+
+		MGraph rebuilt = new MGraph();
+		for (Vertex v : graph.getVertices()) {
+			rebuilt.addVertex(v.getId());
+		}
+		for (Edge e : graph.getEdges()) {
+			rebuilt.addEdge(e.getId(), rebuilt.getVertex(e.getVertex(Direction.OUT).getId()),
+					rebuilt.getVertex(e.getVertex(Direction.IN).getId()), e.getLabel());
+		}
+
+		DoubleMatrix2D expected = rebuilt.getAdjacency();
+		DoubleMatrix2D actual = graph.getAdjacency();
+		for (Vertex a : graph.getVertices()) {
+			for (Vertex b : graph.getVertices()) {
+				String ida = a.getId().toString();
+				String idb = b.getId().toString();
+				int ei = rebuilt.getMatrixElementForVertexID(ida);
+				int ej = rebuilt.getMatrixElementForVertexID(idb);
+				int ai = graph.getMatrixElementForVertexID(ida);
+				int aj = graph.getMatrixElementForVertexID(idb);
+				assertEquals(expected.get(ei, ej), actual.get(ai, aj), 0);
+			}
+		}
+		assertEquals(expected.zSum(), actual.zSum(), 0);
+	}
+
+	@Test
+	public void testSerializable() throws Exception {
+		// TinkerGraph itself can not read back edges, so only vertices are
+		// used here
+		MGraph graph = new MGraph();
+		graph.addVertex("1");
+		graph.addVertex("5");
+		graph.getAdjacency();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(graph);
+		}
+		MGraph copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (MGraph) in.readObject();
+		}
+
+		assertEquals(graph.getMatrixElementForVertexID("5"), copy.getMatrixElementForVertexID("5"));
+		assertEquals(2, copy.getAdjacency().rows());
+	}
+
+	private static void assertWriteFails(Runnable write) {
+		try {
+			write.run();
+			fail("read only matrix was modified");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	@SuppressWarnings("unused")
+	private <T> int count(Iterable<T> recs) {
+		int count = 0;
+		for (T rec : recs) {
+			count++;
+		}
+		return count;
+	}
+}
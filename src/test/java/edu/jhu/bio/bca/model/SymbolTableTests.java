@@ -0,0 +1,44 @@
+package edu.jhu.bio.bca.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SymbolTableTests {
+
+	@Test
+	public void testIntern() {
+		SymbolTable symbols = new SymbolTable(4);
+
+		int count = 10000;
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, symbols.intern("user" + i + "@enron.com"));
+		}
+		assertEquals(count, symbols.size());
+
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, symbols.intern("user" + i + "@enron.com"));
+			assertEquals(i, symbols.indexOf("user" + i + "@enron.com"));
+			assertEquals("user" + i + "@enron.com", symbols.get(i));
+		}
+		assertEquals(count, symbols.size());
+		assertEquals(-1, symbols.indexOf("unknown@enron.com"));
+	}
+
+	@Test
+	public void testLargeSizeHint() {
+		// 16 bytes per symbol would overflow an int past 134M symbols
+		assertEquals(Integer.MAX_VALUE - 8, SymbolTable.poolSizeFor(200_000_000));
+		assertEquals(Integer.MAX_VALUE - 8, SymbolTable.poolSizeFor(SymbolTable.MAX_SYMBOLS));
+		assertEquals(16 * 1000, SymbolTable.poolSizeFor(1000));
+	}
+
+	@Test
+	public void testNormalize() {
+		SymbolTable symbols = new SymbolTable();
+
+		int id = symbols.intern(SymbolTable.normalize(" John.Doe@Enron.com "));
+		assertEquals(id, symbols.intern(SymbolTable.normalize("john.doe@enron.com")));
+		assertEquals("john.doe@enron.com", symbols.get(id));
+	}
+}
@@ -0,0 +1,253 @@
+package edu.jhu.bio.bca.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhu.bio.bca.model.CsrGraph;
+import edu.jhu.bio.bca.model.MGraph;
+import edu.jhu.bio.bca.model.SymbolTable;
+
+public class StreamingGraphParserTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMbox() throws Exception {
+		File mbox = write("mbox",
+				"From alice@enron.com Mon Jan  1 00:00:00 2001",
+				"From: Alice <Alice@Enron.com>",
+				"To: bob@enron.com,",
+				"  \"Doe, Carol\" <carol@enron.com>",
+				"Cc: dave@enron.com, eve@other.com",
+				"Date: Mon, 1 Jan 2001 10:00:00 -0800 (PST)",
+				"Subject: hello",
+				"",
+				"To: not-a-header@enron.com",
+				">From the body",
+				"",
+				"From bob@enron.com Mon Jan  1 00:00:00 2001",
+				"From: bob@enron.com",
+				"To: alice@enron.com",
+				"",
+				"body");
+
+		MboxGraphParser parser = new MboxGraphParser();
+		parser.init(cli(parser.getOptions(), "-mbox_parser_email_suffix", "enron.com"));
+		MGraph graph = parser.parse(mbox.getPath());
+
+		assertEquals(4, count(graph.getVertices()));
+		assertEquals(1.0, weight(graph, "alice@enron.com", "bob@enron.com"), 0);
+		assertEquals(1.0, weight(graph, "alice@enron.com", "carol@enron.com"), 0);
+		assertEquals(0.5, weight(graph, "alice@enron.com", "dave@enron.com"), 0);
+		assertEquals(1.0, weight(graph, "bob@enron.com", "alice@enron.com"), 0);
+		assertNull(graph.getVertex("eve@other.com"));
+		assertNull(graph.getVertex("not-a-header@enron.com"));
+
+		Edge edge = edge(graph, "alice@enron.com", "bob@enron.com");
+		assertEquals(978372000000L, (long) edge.getProperty("time"));
+	}
+
+	@Test
+	public void testRepeatedHeaders() throws Exception {
+		File mbox = write("mbox",
+				"From alice@enron.com Mon Jan  1 00:00:00 2001",
+				"From: alice@enron.com",
+				"To: bob@enron.com",
+				"To: carol@enron.com",
+				"Date: Mon, 1 Jan 2001 10:00:00 -0800",
+				"Date: Tue, 2 Jan 2001 10:00:00 -0800",
+				"",
+				"body");
+
+		MboxGraphParser parser = new MboxGraphParser();
+		parser.init(cli(parser.getOptions()));
+		MGraph graph = parser.parse(mbox.getPath());
+
+		assertEquals(3, count(graph.getVertices()));
+		assertEquals(1.0, weight(graph, "alice@enron.com", "bob@enron.com"), 0);
+		assertEquals(1.0, weight(graph, "alice@enron.com", "carol@enron.com"), 0);
+		assertEquals(978372000000L, (long) edge(graph, "alice@enron.com", "carol@enron.com").getProperty("time"));
+	}
+
+	@Test
+	public void testInvalidWeights() throws Exception {
+		File csv = write("edges.csv", "a,b,0", "a,c,-1", "a,d,NaN", "a,e,Infinity", "a,f,2");
+
+		EdgeListGraphParser parser = new EdgeListGraphParser();
+		parser.init(cli(parser.getOptions(), "-edgelist_parser_delimiter", ","));
+		MGraph graph = parser.parse(csv.getPath());
+
+		assertEquals(2, count(graph.getVertices()));
+		assertEquals(1, count(graph.getEdges()));
+		assertEquals(2.0, weight(graph, "a", "f"), 0);
+	}
+
+	@Test
+	public void testEdgeListWithVertices() throws Exception {
+		write("vertices.txt", "1,a@enron.com", "2,b@enron.com", "3,c@enron.com");
+		write("edges.txt", "# spark edge list", "1\t2", "2\t3", "1\t2", "", "3");
+
+		EdgeListGraphParser parser = new EdgeListGraphParser();
+		parser.init(cli(parser.getOptions()));
+		MGraph graph = parser.parse(folder.getRoot().getPath());
+
+		assertEquals(3, count(graph.getVertices()));
+		assertEquals(2, count(graph.getEdges()));
+		assertEquals(2.0, weight(graph, "a@enron.com", "b@enron.com"), 0);
+		assertEquals(1.0, weight(graph, "b@enron.com", "c@enron.com"), 0);
+	}
+
+	@Test
+	public void testVertexNames() throws Exception {
+		write("vertices.txt", "1,Doe, Jane <a@enron.com>", "2,b@enron.com");
+		write("edges.txt", "1\t2");
+
+		EdgeListGraphParser parser = new EdgeListGraphParser();
+		parser.init(cli(parser.getOptions(), "-edgelist_parser_delimiter", "\\t"));
+		MGraph graph = parser.parse(folder.getRoot().getPath());
+
+		assertEquals(1.0, weight(graph, "Doe, Jane <a@enron.com>", "b@enron.com"), 0);
+	}
+
+	@Test
+	public void testCsvEdgeList() throws Exception {
+		File csv = write("edges.csv", "x,y,2.5,100", "y,x,0.5,200", "x,y,1,300");
+
+		EdgeListGraphParser parser = new EdgeListGraphParser();
+		parser.init(cli(parser.getOptions(), "-edgelist_parser_delimiter", ","));
+		MGraph graph = parser.parse(csv.getPath());
+
+		assertEquals(3.5, weight(graph, "x", "y"), 0);
+		assertEquals(0.5, weight(graph, "y", "x"), 0);
+		assertEquals(300L, (long) edge(graph, "x", "y").getProperty("time"));
+	}
+
+	@Test
+	public void testThreshold() {
+		GraphBuilder builder = new GraphBuilder();
+		builder.edge("a", "b", 3, 0);
+		builder.edge("a", "b", 3, 0);
+		builder.edge("b", "c", 1, 0);
+
+		MGraph graph = builder.toGraph(5);
+		assertEquals(2, count(graph.getVertices()));
+		assertEquals(1, count(graph.getEdges()));
+		assertNull(graph.getVertex("c"));
+	}
+
+	@Test
+	public void testCsrThreshold() throws IOException {
+		GraphBuilder builder = new GraphBuilder();
+		builder.edge("a", "b", 3, 0);
+		builder.edge("a", "b", 3, 0);
+		builder.edge("b", "c", 1, 0);
+
+		File file = folder.newFile();
+		builder.writeCsr(file.toPath(), 5);
+		try (CsrGraph csr = CsrGraph.open(file.toPath())) {
+			assertEquals(2, csr.getVertexCount());
+			assertEquals(1, csr.getEdgeCount());
+			SymbolTable ids = csr.readIds();
+			assertEquals(-1, ids.indexOf("c"));
+			// rows hold the IN edges
+			int b = ids.indexOf("b");
+			assertEquals(ids.indexOf("a"), csr.target(csr.offset(b)));
+			assertEquals(6.0, csr.weight(csr.offset(b)), 0);
+		}
+	}
+
+	@Test
+	public void testUnweightedCsr() throws IOException {
+		GraphBuilder builder = new GraphBuilder();
+		builder.edge("a", "b", 1, 0);
+		builder.edge("b", "c", 1, 0);
+
+		File file = folder.newFile();
+		builder.writeCsr(file.toPath());
+		try (CsrGraph csr = CsrGraph.open(file.toPath())) {
+			assertFalse(csr.isWeighted());
+			assertEquals(3, csr.getVertexCount());
+			assertEquals(2, csr.getEdgeCount());
+		}
+
+		try {
+			builder.edge("c", "d", 1, 0);
+			fail("builder was used after writing the CSR file");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		char[] chars = new char[100];
+		Arrays.fill(chars, 'x');
+		String longLine = new String(chars);
+		File file = write("lines", "a", longLine, "", "b\r", "c");
+
+		try (LineReader reader = new LineReader(file.toPath(), 16)) {
+			for (String expected : new String[] { "a", longLine, "", "b", "c" }) {
+				assertTrue(reader.next());
+				assertEquals(expected, reader.line());
+			}
+			assertFalse(reader.next());
+		}
+	}
+
+	private File write(String name, String... lines) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+		return file;
+	}
+
+	private CommandLine cli(Options options, String... args) throws ParseException {
+		return new GnuParser().parse(options, args);
+	}
+
+	private Edge edge(MGraph graph, String from, String to) {
+		Vertex vertex = graph.getVertex(from);
+		assertNotNull(from, vertex);
+		for (Edge e : vertex.getEdges(Direction.OUT)) {
+			if (e.getVertex(Direction.IN).getId().equals(to)) {
+				return e;
+			}
+		}
+		throw new AssertionError("no edge " + from + " -> " + to);
+	}
+
+	private double weight(MGraph graph, String from, String to) {
+		return edge(graph, from, to).getProperty("weight");
+	}
+
+	@SuppressWarnings("unused")
+	private <T> int count(Iterable<T> recs) {
+		int count = 0;
+		for (T rec : recs) {
+			count++;
+		}
+		return count;
+	}
+}